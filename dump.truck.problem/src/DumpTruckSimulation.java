@@ -1,8 +1,20 @@
+import sim.kernel.Checkpoint;
+import sim.kernel.DoubleQueue;
+import sim.kernel.EventList;
+import sim.kernel.ParameterSweep;
+import sim.kernel.ReplicationRunner;
+import sim.kernel.SimEvent;
+import sim.kernel.SimModel;
+import sim.kernel.SimRandomGenerator;
+import sim.kernel.WarmUp;
+
 import java.io.BufferedWriter;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.LinkedList;
-import java.util.List;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 
 
 /**
@@ -10,7 +22,8 @@ import java.util.List;
  * Reference: Jerry Banks et. all, Discrete-Event System Simulation (3rd Edition),
  * Example 3.5 page 80 Dump Truck Problem
  */
-public class DumpTruckSimulation {
+public class DumpTruckSimulation implements SimModel {
+    static final String MODEL = "DumpTruckSimulation"; // name in the checkpoints
 
     enum ServerStatus {IDLE, BUSY}
 
@@ -20,18 +33,32 @@ public class DumpTruckSimulation {
     ServerStatus loader;
     ServerStatus scale;
 
-    List<Double> loaderQueue; // record arrival times to calc the delay when starting service on the loader
-    List<Double> scaleQueue; // record arrival times to calc the delay when starting service on the scale
+    DoubleQueue loaderQueue; // record arrival times to calc the delay when starting service on the loader
+    DoubleQueue scaleQueue; // record arrival times to calc the delay when starting service on the scale
 
 
     /**
      * Event list, Random numbers generator, Statistics, and Input parameters.
      */
-    EventList eventList;
+    EventList<EventTag> eventList;
     SimRandomGenerator randGen;
+    SimRandomGenerator loadingStream, weighingStream, travelStream; // substreams of randGen
     SimStats stats;
     SimParams params;
 
+    WarmUp warmUp; // detected by MSER-5: series 0 is the delays in the loader queue, 1 in the scale queue
+    Checkpoint checkpoint; // checkpoints of a single run, null otherwise
+
+    public DumpTruckSimulation() {
+    }
+
+    /**
+     * @param params input parameters, shared by the replications of the model
+     */
+    public DumpTruckSimulation(SimParams params) {
+        this.params = params;
+    }
+
     /**
      * Initialize the simulation.
      *
@@ -40,19 +67,49 @@ public class DumpTruckSimulation {
      */
     public void initSimulation(String inputParamsFile) throws IOException {
         /* Read input parameters. */
-        this.params = SimParams.loadFrom(inputParamsFile);
+        SimParams params = SimParams.loadFrom(inputParamsFile);
+        initSimulation(params, params.newRandomGenerator(1));
+    }
+
+    /**
+     * Initialize the simulation. With "warmup.mser5" the end of the warm-up period is detected by
+     * MSER-5 on the delays in queue of the run itself, no random numbers are drawn for it.
+     *
+     * @param params  input parameters
+     * @param randGen random generator of the random variates
+     */
+    public void initSimulation(SimParams params, SimRandomGenerator randGen) {
+        initSimulation(params, randGen, params.warmUp(2));
+    }
+
+    /**
+     * Initialize the simulation.
+     *
+     * @param params  input parameters
+     * @param randGen random generator of the random variates
+     * @param warmUp  warm-up period whose statistics are discarded
+     */
+    void initSimulation(SimParams params, SimRandomGenerator randGen, WarmUp warmUp) {
+        this.params = params;
+        this.warmUp = warmUp;
 
         /* Initialize the  state variables. */
         loader = ServerStatus.IDLE;
-        loaderQueue = new LinkedList<>();
+        loaderQueue = new DoubleQueue();
 
         scale = ServerStatus.IDLE;
-        scaleQueue = new LinkedList<>();
+        scaleQueue = new DoubleQueue();
 
         /* Initialize the simulation clock and event list. */
-        this.eventList = new EventList(0.0);
+        this.eventList = new EventList<>(0.0, EventTag.NONE, params.eventListType());
+
+        this.randGen = randGen;
 
-        this.randGen = new SimRandomGenerator(1);
+        /* One substream per kind of variate, so that configurations run on the same seed draw the
+           same random numbers for the same purpose (common random numbers). */
+        this.loadingStream = randGen.substream();
+        this.weighingStream = randGen.substream();
+        this.travelStream = randGen.substream();
 
         /* Initialize the statistical variables. */
         this.stats = new SimStats();
@@ -60,29 +117,73 @@ public class DumpTruckSimulation {
 
         /* Schedule first Arrivals for all trucks */
         for (int i = 0; i < params.getNumTrucks(); i++) {
-            double travelTime = randGen.uniformSample(params.getLowerTravelTime(), params.getMaxTravelTime());
-            SimEvent truckArrival = new SimEvent(EventTag.LOADER_ARRIVAL,
+            double travelTime = travelStream.uniformSample(params.getLowerTravelTime(), params.getMaxTravelTime());
+            eventList.schedule(EventTag.LOADER_ARRIVAL,
                     travelTime);
-            eventList.add(truckArrival);
         }
 
     }
 
 
+    /**
+     * Resume a run from a checkpoint, instead of initSimulation(). The parameters may differ from
+     * the ones of the checkpointed run, e.g. the service times of a what-if branch, but the trucks
+     * are the ones of the checkpoint.
+     *
+     * @param file    checkpoint written by a run of this model
+     * @param params  input parameters of the rest of the run
+     * @param randGen checkpointable generator, its substreams get the state of the checkpoint
+     */
+    public void restore(Path file, SimParams params, SimRandomGenerator randGen) throws IOException {
+        /* The warm-up is restored, without a pilot run. */
+        initSimulation(params, randGen, WarmUp.none());
+        Checkpoint.read(file, MODEL, this::readState);
+    }
+
+    /**
+     * Write the state of the run between two events: clock and pending events, servers and queues,
+     * statistics, warm-up and positions of the substreams.
+     */
+    void writeState(DataOutput out) throws IOException {
+        eventList.writeTo(out);
+        out.writeByte(loader.ordinal());
+        out.writeByte(scale.ordinal());
+        loaderQueue.writeTo(out);
+        scaleQueue.writeTo(out);
+        stats.writeTo(out);
+        warmUp.writeTo(out);
+        loadingStream.writeTo(out);
+        weighingStream.writeTo(out);
+        travelStream.writeTo(out);
+    }
+
+    /**
+     * Read the state written by writeState(), in the same order.
+     */
+    void readState(DataInput in) throws IOException {
+        eventList.readFrom(in);
+        loader = ServerStatus.values()[in.readByte()];
+        scale = ServerStatus.values()[in.readByte()];
+        loaderQueue.readFrom(in);
+        scaleQueue.readFrom(in);
+        stats.readFrom(in);
+        warmUp = WarmUp.readFrom(in);
+        loadingStream.readFrom(in);
+        weighingStream.readFrom(in);
+        travelStream.readFrom(in);
+    }
+
     /**
      * Extract the next event.
      *
      * @return
      */
-    public SimEvent timing() {
-        /* Check to see whether the event list is empty. */
-        if (eventList.size() == 0) return SimEvent.NONE;
-        SimEvent nextEvent = eventList.removeHeadEvent();
-
-        return nextEvent;
+    public SimEvent<EventTag> timing() {
+        /* The event list returns the NONE event if it is empty. */
+        return eventList.removeHeadEvent();
     }
 
-    private void loaderArrive(SimEvent ev) {
+    private void loaderArrive(SimEvent<EventTag> ev) {
 
         /* Check to see whether loader is busy. */
         if (loader == ServerStatus.BUSY) {
@@ -90,13 +191,13 @@ public class DumpTruckSimulation {
             loaderQueue.add(ev.time);
         } else {
             /* Loader is idle, so arriving truck has a delay of zero. make the loader busy. */
+            recordLoaderDelay(0.0);
             loader = ServerStatus.BUSY;
             /* Schedule a departure (service completion). */
             double departureTime = eventList.getTime() +
-                    randGen.exponentialSample(params.getMeanLoaderServiceTime());
-            SimEvent nextDeparture1Event = new SimEvent(EventTag.LOADER_DEPARTURE,
+                    loadingStream.exponentialSample(params.getMeanLoaderServiceTime());
+            eventList.schedule(EventTag.LOADER_DEPARTURE,
                     departureTime);
-            eventList.add(nextDeparture1Event);
         }
     }
 
@@ -106,30 +207,28 @@ public class DumpTruckSimulation {
      *
      * @param ev
      */
-    private void loaderDepart(SimEvent ev) {
+    private void loaderDepart(SimEvent<EventTag> ev) {
         /* Check to see whether loader queue is empty. */
-        if (loaderQueue.size() == 0) {
+        if (loaderQueue.isEmpty()) {
             /* Queue is empty, make the loader idle */
             loader = ServerStatus.IDLE;
         } else {
             /* Queue is nonempty, decrement the number of trucks waiting in loader queue. */
-            double headArrivalTime = loaderQueue.remove(0); //queue1--
+            double headArrivalTime = loaderQueue.remove(); //queue1--
             /* Compute the delay of the truck who is beginning service and update
                 the total delay accumulator. */
             double delay = ev.time - headArrivalTime;
-            stats.totalDelaysInLoaderQueue += delay;
+            recordLoaderDelay(delay);
 
             /* schedule departure event for this truck */
             double nextDepartureTime = ev.time +
-                    randGen.exponentialSample(params.getMeanLoaderServiceTime());
-            SimEvent endLoadingEvent = new SimEvent((EventTag.LOADER_DEPARTURE), nextDepartureTime);
-            eventList.add(endLoadingEvent);
+                    loadingStream.exponentialSample(params.getMeanLoaderServiceTime());
+            eventList.schedule((EventTag.LOADER_DEPARTURE), nextDepartureTime);
         }
 
         /* schedule scale arrival event if at different time
         double nextScaleArrival = ev.time;
-        SimEvent scaleArrivalEvent = new SimEvent(EventTag.SCALE_ARRIVAL, nextScaleArrival);
-        eventList.add(scaleArrivalEvent);
+        eventList.schedule(EventTag.SCALE_ARRIVAL, nextScaleArrival);
         */
 
         /* Call scaleArrive immediately since no travel time between the loader and the scale */
@@ -137,7 +236,7 @@ public class DumpTruckSimulation {
     }
 
 
-    private void scaleArrive(SimEvent ev) {
+    private void scaleArrive(SimEvent<EventTag> ev) {
 
         /* Check to see whether scale is busy. */
         if (scale == ServerStatus.BUSY) {
@@ -145,13 +244,13 @@ public class DumpTruckSimulation {
             scaleQueue.add(ev.time);
         } else {
             /* Scale is idle, so arriving trucks has a delay of zero. make the loader busy*/
+            recordScaleDelay(0.0);
             scale = ServerStatus.BUSY;
             /* Schedule a departure (service completion). */
             double departureTime = eventList.getTime() +
-                    randGen.exponentialSample(params.getMeanScaleServiceTime());
-            SimEvent departureEvent = new SimEvent(EventTag.SCALE_DEPARTURE,
+                    weighingStream.exponentialSample(params.getMeanScaleServiceTime());
+            eventList.schedule(EventTag.SCALE_DEPARTURE,
                     departureTime);
-            eventList.add(departureEvent);
         }
     }
 
@@ -160,34 +259,51 @@ public class DumpTruckSimulation {
      *
      * @param ev
      */
-    private void scaleDepart(SimEvent ev) {
+    private void scaleDepart(SimEvent<EventTag> ev) {
         /* update total number of time of trucks served by the system (complete one job cycle). */
         stats.numArrivals++;
 
-        if (scaleQueue.size() == 0) {
+        if (scaleQueue.isEmpty()) {
             /* Scale queue is empty, make the scale idle */
             scale = ServerStatus.IDLE;
         } else {
             /* Queue is nonempty, decrement the number of trucks waiting in
                 the queue. */
-            double headArrivalTime = scaleQueue.remove(0); //queue--
+            double headArrivalTime = scaleQueue.remove(); //queue--
             /* Compute the delay of the truck entering the scale and update
                 the total delay accumulator. */
             double delay = ev.time - headArrivalTime;
-            stats.totalDelaysInScaleQueue += delay;
+            recordScaleDelay(delay);
 
             /* schedule departure event for this truck*/
             double departureTime = ev.time +
-                    randGen.exponentialSample(params.getMeanScaleServiceTime());
-            SimEvent nextDepartureEvent = new SimEvent((EventTag.SCALE_DEPARTURE), departureTime);
-            eventList.add(nextDepartureEvent);
+                    weighingStream.exponentialSample(params.getMeanScaleServiceTime());
+            eventList.schedule((EventTag.SCALE_DEPARTURE), departureTime);
         }
 
         /* Simulate a truck's travel time and schedule the next load arrival event */
-        double travelTime = randGen.uniformSample(params.getLowerTravelTime(), params.getMaxTravelTime());
-        SimEvent loaderArriveEvent = new SimEvent(EventTag.LOADER_ARRIVAL,
+        double travelTime = travelStream.uniformSample(params.getLowerTravelTime(), params.getMaxTravelTime());
+        eventList.schedule(EventTag.LOADER_ARRIVAL,
                 ev.time + travelTime);
-        eventList.add(loaderArriveEvent);
+    }
+
+    private void recordLoaderDelay(double delay) {
+        stats.delaysInLoaderQueue.record(delay);
+        warmUp.record(0, delay, eventList.getTime());
+    }
+
+    private void recordScaleDelay(double delay) {
+        stats.delaysInScaleQueue.record(delay);
+        warmUp.record(1, delay, eventList.getTime());
+    }
+
+    /**
+     * Discard the statistics of the warm-up period.
+     */
+    void resetStats() {
+        this.stats = new SimStats();
+        loaderQueue.resetMaxSize();
+        scaleQueue.resetMaxSize();
     }
 
     /**
@@ -200,18 +316,16 @@ public class DumpTruckSimulation {
 
 
         /* Update area under number-in-queue for the loader. */
-        if (loader == ServerStatus.BUSY)
-            stats.areaStatusLoader += timeSinceLastEvent;
+        stats.statusLoader.accumulate(loader == ServerStatus.BUSY ? 1 : 0, timeSinceLastEvent);
 
         /* Update area under server-busy indicator for the loader. */
-        stats.areaNumInQLoader += (loaderQueue.size() * timeSinceLastEvent);
+        stats.numInQLoader.accumulate(loaderQueue.size(), timeSinceLastEvent);
 
         /* Update area under number-in-queue for the scale. */
-        if (scale == ServerStatus.BUSY)
-            stats.areaStatusScale += timeSinceLastEvent;
+        stats.statusScale.accumulate(scale == ServerStatus.BUSY ? 1 : 0, timeSinceLastEvent);
 
         /* Update area under server-busy for the scale. */
-        stats.areaNumInQScale += (scaleQueue.size() * timeSinceLastEvent);
+        stats.numInQScale.accumulate(scaleQueue.size(), timeSinceLastEvent);
     }
 
     /**
@@ -229,31 +343,38 @@ public class DumpTruckSimulation {
         outfile.write(String.format("Lower travel time time%11.3f minutes\n\n", params.getLowerTravelTime()));
         outfile.write(String.format("Max travel time time%11.3f minutes\n\n", params.getMaxTravelTime()));
         outfile.write(String.format("Total Simulation Time %11.2f\n\n", params.getEndOfSimulationTime()));
+        if (warmUp.endTime() > 0) {
+            outfile.write(String.format("Warm-up deleted up to%12.3f minutes\n\n", warmUp.endTime()));
+        }
 
 
         outfile.write("\n----------------- Outputs --------------------");
 
         /* Calc stats for the loader*/
-        double avgDelayInLoader = stats.totalDelaysInLoaderQueue / stats.numArrivals;
+        double avgDelayInLoader = stats.delaysInLoaderQueue.mean();
         outfile.write(String.format("\n\nAverage delay in loader = %4.3f minutes",
                 avgDelayInLoader));
 
         outfile.write(String.format("\n\nAverage number in loader's queue = %4.3f",
-                stats.areaNumInQLoader / eventList.getTime()));
+                stats.numInQLoader.mean()));
+        outfile.write(String.format("\n\nMax number in loader's queue = %d",
+                loaderQueue.maxSize()));
 
         outfile.write(String.format("\n\nLoader utilization = %4.3f",
-                stats.areaStatusLoader / eventList.getTime()));
+                stats.statusLoader.mean()));
 
         /* Calc same stats for the scale */
-        double avgDelayInScale = stats.totalDelaysInScaleQueue / stats.numArrivals;
+        double avgDelayInScale = stats.delaysInScaleQueue.mean();
         outfile.write(String.format("\n\nAverage delay in scale queue = %4.3f minutes",
                 avgDelayInScale));
 
         outfile.write(String.format("\n\nAverage number in scale = %4.3f",
-                stats.areaNumInQScale / eventList.getTime()));
+                stats.numInQScale.mean()));
+        outfile.write(String.format("\n\nMax number in scale queue = %d",
+                scaleQueue.maxSize()));
 
         outfile.write(String.format("\n\nScale utilization = %4.3f",
-                stats.areaStatusScale / eventList.getTime()));
+                stats.statusScale.mean()));
 
         outfile.write(String.format("\n\nTotal number of trucks served= %d trucks", stats.numArrivals));
 
@@ -267,16 +388,37 @@ public class DumpTruckSimulation {
      * @throws IOException
      */
     public void runSimulation() throws IOException {
+        /* Checkpoints of a single run only, replications would share the file. */
+        checkpoint = params.checkpoint(MODEL);
+        if (checkpoint != null) checkpoint.resumeAt(eventList);
+
+        simulate();
+
+        /* Invoke the report generator and end the simulation. */
+        report();
+    }
 
+    /**
+     * Run the simulation until its end.
+     */
+    void simulate() {
         double endOfSimulationTime = params.getEndOfSimulationTime();
 
         while (eventList.getTime() < endOfSimulationTime) {
+            /* Write a checkpoint between two events. */
+            if (checkpoint != null && checkpoint.isDue(eventList)) {
+                writeCheckpoint();
+                if (checkpoint.stopsRun()) break;
+            }
+
+            /* Discard the statistics collected until the end of the warm-up period. */
+            if (warmUp.endsAt(eventList)) resetStats();
 
             /* Update time-average statistical accumulators. */
             updateTimeAvgStats();
 
-            /*  final SimEvent nextEvent = eventList.removeHeadEvent(); */
-            final SimEvent ev = timing();
+            /*  final SimEvent<EventTag> nextEvent = eventList.removeHeadEvent(); */
+            final SimEvent<EventTag> ev = timing();
 
             /* Invoke the appropriate event */
             EventTag tag = ev.tag;
@@ -305,15 +447,58 @@ public class DumpTruckSimulation {
                 break;
             }
         }
+    }
 
-        /* Invoke the report generator and end the simulation. */
-        report();
+    private void writeCheckpoint() {
+        try {
+            checkpoint.write(this::writeState);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void replicate(SimRandomGenerator randGen) {
+        initSimulation(params, randGen);
+        simulate();
+    }
 
+    @Override
+    public String[] measureNames() {
+        return new String[]{"avg.delay.in.loader.queue", "avg.number.in.loader.queue", "loader.utilization",
+                "avg.delay.in.scale.queue", "avg.number.in.scale.queue", "scale.utilization"};
+    }
+
+    @Override
+    public double[] measures() {
+        return new double[]{stats.delaysInLoaderQueue.mean(), stats.numInQLoader.mean(), stats.statusLoader.mean(),
+                stats.delaysInScaleQueue.mean(), stats.numInQScale.mean(), stats.statusScale.mean()};
+    }
+
+    @Override
+    public long numEvents() {
+        return eventList.numEvents();
     }
 
     public static void main(String[] args) throws IOException {
+        SimParams params = SimParams.loadFrom("src/input.params.txt");
+        if (ParameterSweep.isDefined(params)) {
+            /* Scenarios of the "sweep." keys, one CSV row of output measures each. */
+            new ParameterSweep<>(params).run(DumpTruckSimulation::new);
+            return;
+        }
+        if (params.replications() > 1) {
+            /* Independent replications, report the confidence intervals of the measures. */
+            System.out.println(new ReplicationRunner(params).run(() -> new DumpTruckSimulation(params)));
+            return;
+        }
         DumpTruckSimulation dumpTruckSimulation = new DumpTruckSimulation();
-        dumpTruckSimulation.initSimulation("src/input.params.txt");
+        if (params.restoreFile() != null) {
+            /* Resume the run of a checkpoint. */
+            dumpTruckSimulation.restore(params.restoreFile(), params, params.newRandomGenerator(1));
+        } else {
+            dumpTruckSimulation.initSimulation(params, params.newRandomGenerator(1));
+        }
         dumpTruckSimulation.runSimulation();
     }
 
@@ -0,0 +1,9 @@
+
+enum EventTag {
+    NONE,
+    LOADER_ARRIVAL,
+    LOADER_DEPARTURE,
+//    SCALE_ARRIVAL, // Redundant event
+    SCALE_DEPARTURE,
+    END_OF_SIMULATION
+}
@@ -1,11 +1,11 @@
-import java.io.FileReader;
+import sim.kernel.SimProperties;
+
 import java.io.IOException;
-import java.util.Properties;
 
 /**
  * Used to read inputs written in "properties" file format
  */
-public class SimParams extends Properties {
+public class SimParams extends SimProperties {
     private int numTrucks;
     private double lowerTravelTime;
     private double maxTravelTime;
@@ -14,7 +14,8 @@ public class SimParams extends Properties {
     private String outFilePath;
     private double endOfSimulationTime;
 
-    private void init() {
+    @Override
+    protected void init() {
         numTrucks = Integer.parseInt(getProperty("num.trucks"));
 
         lowerTravelTime = Double.parseDouble(getProperty("lower.travel.time"));
@@ -55,10 +56,7 @@ public class SimParams extends Properties {
 
     public static SimParams loadFrom(String fileName)
             throws IOException {
-        SimParams result = new SimParams();
-        result.load(new FileReader(fileName));
-        result.init();
-        return result;
+        return loadFrom(fileName, SimParams::new);
     }
 }
 
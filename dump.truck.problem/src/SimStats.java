@@ -1,25 +1,49 @@
+import sim.kernel.SampleStat;
+import sim.kernel.TimeStat;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 /**
  * Wrapper to hold statistical variables.
  */
 public class SimStats {
     public int numArrivals;
 
-    public double totalDelaysInLoaderQueue;
-    public double totalDelaysInScaleQueue;
+    public final SampleStat delaysInLoaderQueue = new SampleStat();
+    public final SampleStat delaysInScaleQueue = new SampleStat();
 
-    public double areaNumInQLoader;
-    public double areaStatusLoader;
+    public final TimeStat numInQLoader = new TimeStat();
+    public final TimeStat statusLoader = new TimeStat();
 
-    public double areaNumInQScale;
-    public double areaStatusScale;
+    public final TimeStat numInQScale = new TimeStat();
+    public final TimeStat statusScale = new TimeStat();
+
+    /**
+     * Write the statistical variables, e.g. to a checkpoint.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(numArrivals);
+        delaysInLoaderQueue.writeTo(out);
+        delaysInScaleQueue.writeTo(out);
+        numInQLoader.writeTo(out);
+        statusLoader.writeTo(out);
+        numInQScale.writeTo(out);
+        statusScale.writeTo(out);
+    }
 
-    public SimStats() {
-        this.numArrivals = 0;
-        this.totalDelaysInLoaderQueue = 0;
-        this.areaNumInQLoader = 0;
-        this.areaStatusLoader = 0;
-        this.areaNumInQScale = 0;
-        this.areaStatusScale = 0;
+    /**
+     * Replace the statistical variables by the ones written by writeTo().
+     */
+    public void readFrom(DataInput in) throws IOException {
+        numArrivals = in.readInt();
+        delaysInLoaderQueue.readFrom(in);
+        delaysInScaleQueue.readFrom(in);
+        numInQLoader.readFrom(in);
+        statusLoader.readFrom(in);
+        numInQScale.readFrom(in);
+        statusScale.readFrom(in);
     }
 
 }
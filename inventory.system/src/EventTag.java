@@ -0,0 +1,3 @@
+enum EventTag {
+    NONE, ORDER_ARRIVAL, DEMAND, EVALUATE, REPORT, END_OF_SIMULATION
+}
@@ -1,6 +1,18 @@
+import sim.kernel.Checkpoint;
+import sim.kernel.EventList;
+import sim.kernel.ParameterSweep;
+import sim.kernel.ReplicationRunner;
+import sim.kernel.SimEvent;
+import sim.kernel.SimModel;
+import sim.kernel.SimRandomGenerator;
+
 import java.io.BufferedWriter;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 
 
 /**
@@ -8,74 +20,154 @@ import java.io.IOException;
  * Reference: A. M. Law, Simulation Modeling & Analysis 3rd edition,
  * Example 1.5 page 60
  */
-public class InventorySystem {
+public class InventorySystem implements SimModel {
+    static final String MODEL = "InventorySystem"; // name in the checkpoints
 
-    EventList eventList;
+    EventList<EventTag> eventList;
     SimRandomGenerator randGen;
+    SimRandomGenerator demandStream, demandSizeStream, leadTimeStream; // substreams of randGen
     SimStats stats;
     SimParams params;
+    Checkpoint checkpoint; // checkpoints of a single run, null otherwise
 
     int inventoryLevel;
 
+    public InventorySystem() {
+    }
+
+    /**
+     * @param params input parameters, shared by the replications of the model
+     */
+    public InventorySystem(SimParams params) {
+        this.params = params;
+    }
+
     public void initSimulation(String inputParamsFile) throws IOException {
+        /* Read input parameters. */
+        SimParams params = SimParams.loadFrom(inputParamsFile);
+        initSimulation(params, params.newRandomGenerator(1));
+    }
+
+    /**
+     * Initialize the simulation.
+     *
+     * @param params  input parameters
+     * @param randGen random generator of the random variates
+     */
+    public void initSimulation(SimParams params, SimRandomGenerator randGen) {
+        this.params = params;
+
         /* Initialize time and the event list.  Since no order is outstanding */
-        this.eventList = new EventList(0.0);
+        this.eventList = new EventList<>(0.0, EventTag.NONE, params.eventListType());
+
+        this.randGen = randGen;
 
-        this.randGen = new SimRandomGenerator(1);
+        /* One substream per kind of variate, so that configurations run on the same seed draw the
+           same random numbers for the same purpose (common random numbers). */
+        this.demandStream = randGen.substream();
+        this.demandSizeStream = randGen.substream();
+        this.leadTimeStream = randGen.substream();
 
         /* Initialize the statistical counters. */
         this.stats = new SimStats();
 
-        /* Read input parameters. */
-        this.params = SimParams.loadFrom(inputParamsFile);
-
         /* Initialize the state variables. */
         this.inventoryLevel = params.getCapacity();
 
         //schedule the first demand event
-        double timeNextDemand = randGen.getRandomExponentical(params.getMeanInterDemandTime());
-        eventList.add(new SimEvent(EventTag.DEMAND, timeNextDemand));
+        double timeNextDemand = demandStream.exponentialSample(params.getMeanInterDemandTime());
+        eventList.schedule(EventTag.DEMAND, timeNextDemand);
 
         //schedule the first evaluation event
-        eventList.add(new SimEvent(EventTag.EVALUATE, 1.0));
+        eventList.schedule(EventTag.EVALUATE, 1.0);
 
         //schedule the END_OF_SIMULATION event
-        eventList.add(new SimEvent(EventTag.END_OF_SIMULATION, params.getNumMonths()));
+        eventList.schedule(EventTag.END_OF_SIMULATION, params.getNumMonths());
+
+    }
+
+
+    /**
+     * Resume a run from a checkpoint, instead of initSimulation(). The parameters may differ from
+     * the ones of the checkpointed run, e.g. the policy or the number of months of a what-if branch.
+     *
+     * @param file    checkpoint written by a run of this model
+     * @param params  input parameters of the rest of the run
+     * @param randGen checkpointable generator, its substreams get the state of the checkpoint
+     */
+    public void restore(Path file, SimParams params, SimRandomGenerator randGen) throws IOException {
+        initSimulation(params, randGen);
+        Checkpoint.read(file, MODEL, this::readState);
+
+        /* The run ends at the horizon of the new parameters, not at the checkpointed one. */
+        if (params.getNumMonths() <= eventList.getTime())
+            throw new IllegalArgumentException("num.months " + params.getNumMonths()
+                    + " is not after the checkpoint time " + eventList.getTime());
+        eventList.cancel(EventTag.END_OF_SIMULATION);
+        eventList.schedule(EventTag.END_OF_SIMULATION, params.getNumMonths());
+    }
 
+    /**
+     * Write the state of the run between two events: clock and pending events, inventory level,
+     * statistics and positions of the substreams.
+     */
+    void writeState(DataOutput out) throws IOException {
+        eventList.writeTo(out);
+        out.writeInt(inventoryLevel);
+        stats.writeTo(out);
+        demandStream.writeTo(out);
+        demandSizeStream.writeTo(out);
+        leadTimeStream.writeTo(out);
     }
 
+    /**
+     * Read the state written by writeState(), in the same order.
+     */
+    void readState(DataInput in) throws IOException {
+        eventList.readFrom(in);
+        inventoryLevel = in.readInt();
+        stats.readFrom(in);
+        demandStream.readFrom(in);
+        demandSizeStream.readFrom(in);
+        leadTimeStream.readFrom(in);
+    }
 
-    public SimEvent timing() {
-        /* Check to see whether the event list is empty. */
-        if (eventList.size() == 0) return SimEvent.NONE;
-        SimEvent nextEvent = eventList.removeHeadEvent();
-        return nextEvent;
+    public SimEvent<EventTag> timing() {
+        /* The event list returns the NONE event if it is empty. */
+        return eventList.removeHeadEvent();
     }
 
 
     /* Order arrival event method. */
-    private void orderArrival(SimEvent ev) {
+    private void orderArrival(SimEvent<EventTag> ev) {
 
         /* Increment the inventory level by the amount ordered. */
-        int amount = (Integer) ev.data;
+        int amount = (int) ev.longData;
         inventoryLevel += amount;
     }
 
     /* Demand event method. */
-    private void demand(SimEvent ev) {
+    private void demand(SimEvent<EventTag> ev) {
         /* Decrement the inventory level by a generated demand size. */
-        int amount = randGen.getRandomDemand();
+        int amount = randomDemand();
         inventoryLevel -= amount;
 
         /* Schedule the time of the next demand. */
         double timeNextDemand = ev.time +
-                randGen.getRandomExponentical(params.getMeanInterDemandTime());
-        SimEvent nextDemandEvent = new SimEvent(EventTag.DEMAND, timeNextDemand);
-        eventList.add(nextDemandEvent);
+                demandStream.exponentialSample(params.getMeanInterDemandTime());
+        eventList.schedule(EventTag.DEMAND, timeNextDemand);
+    }
+
+    /**
+     * Generate a demand size from the demand.sizes and demand.probabilities table of the input
+     * parameters, by default 1, 2, 3 or 4 items with probabilities 1/6, 1/3, 1/3 and 1/6.
+     */
+    private int randomDemand() {
+        return params.getDemandSize(demandSizeStream.discreteSample(params.getDemandSizeDistribution()));
     }
 
     /* Inventory-evaluation event method. */
-    private void evaluate(SimEvent ev) {
+    private void evaluate(SimEvent<EventTag> ev) {
          /* Check whether the inventory level is less than threshold. */
 
         if (inventoryLevel < params.getThreshold()) {
@@ -90,15 +182,14 @@ public class InventorySystem {
 
 
             /* Schedule the arrival of the order. */
-            double timeOrderArrival = ev.time + randGen.getRandomUniform(.5, 1);
-            SimEvent nextOrderArrivalEvent = new SimEvent(EventTag.ORDER_ARRIVAL,
+            double timeOrderArrival = ev.time + leadTimeStream.uniformSample(.5, 1);
+            eventList.schedule(EventTag.ORDER_ARRIVAL,
                     timeOrderArrival, amount);
-            eventList.add(nextOrderArrivalEvent);
         }
 
         /* Regardless of the place-order decision, schedule the next inventory
             evaluation. */
-        eventList.add(new SimEvent(EventTag.EVALUATE, ev.time + 1.0));
+        eventList.schedule(EventTag.EVALUATE, ev.time + 1.0);
     }
 
     /**
@@ -114,11 +205,8 @@ public class InventorySystem {
          update If it was positive, update area_holding.
          If it was zero, no update is needed.
           */
-        if (inventoryLevel < 0) {
-            stats.areaShortage -= inventoryLevel * timeSinceLastEvent;
-        } else {
-            stats.areaHolding += inventoryLevel * timeSinceLastEvent;
-        }
+        stats.shortage.accumulate(inventoryLevel < 0 ? -inventoryLevel : 0, timeSinceLastEvent);
+        stats.holding.accumulate(inventoryLevel > 0 ? inventoryLevel : 0, timeSinceLastEvent);
 
     }
 
@@ -149,14 +237,32 @@ public class InventorySystem {
 
 
     public void runSimulation() throws IOException {
+        /* Checkpoints of a single run only, replications would share the file. */
+        checkpoint = params.checkpoint(MODEL);
+        if (checkpoint != null) checkpoint.resumeAt(eventList);
+
+        simulate();
 
+        /* Invoke the report generator and end the simulation. */
+        report();
+    }
 
+    /**
+     * Run the simulation until its end.
+     */
+    void simulate() {
          /* Run the simulation until it terminates after an END_OF_SIMULATION event
             occurs. */
         while (true) {
 
+            /* Write a checkpoint between two events. */
+            if (checkpoint != null && checkpoint.isDue(eventList)) {
+                writeCheckpoint();
+                if (checkpoint.stopsRun()) break;
+            }
+
             /* Determine the next event. */
-            final SimEvent nextEvent = timing();
+            final SimEvent<EventTag> nextEvent = timing();
 
             /* Update time-average statistical accumulators. */
             updateTimeAvgStats();
@@ -184,14 +290,60 @@ public class InventorySystem {
                 break;
             }
         }
+    }
 
-        report();
+    private void writeCheckpoint() {
+        try {
+            checkpoint.write(this::writeState);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
-    public static void main(String[] args) throws IOException {
+    @Override
+    public void replicate(SimRandomGenerator randGen) {
+        initSimulation(params, randGen);
+        simulate();
+    }
+
+    @Override
+    public String[] measureNames() {
+        return new String[]{"avg.ordering.cost", "avg.holding.cost", "avg.shortage.cost", "avg.total.cost"};
+    }
+
+    @Override
+    public double[] measures() {
+        double orderingCost = stats.totalOrderingCost / params.getNumMonths();
+        double holdingCost = params.getHoldingCost() * stats.holding.mean();
+        double shortageCost = params.getShortageCost() * stats.shortage.mean();
+        return new double[]{orderingCost, holdingCost, shortageCost,
+                orderingCost + holdingCost + shortageCost};
+    }
 
+    @Override
+    public long numEvents() {
+        return eventList.numEvents();
+    }
+
+    public static void main(String[] args) throws IOException {
+        SimParams params = SimParams.loadFrom("src/input.params.txt");
+        if (ParameterSweep.isDefined(params)) {
+            /* Scenarios of the "sweep." keys, one CSV row of output measures each. */
+            new ParameterSweep<>(params).run(InventorySystem::new);
+            return;
+        }
+        if (params.replications() > 1) {
+            /* Independent replications, report the confidence intervals of the measures. */
+            System.out.println(new ReplicationRunner(params).run(() -> new InventorySystem(params)));
+            return;
+        }
         InventorySystem inv = new InventorySystem();
-        inv.initSimulation("src/input.params.txt");
+        if (params.restoreFile() != null) {
+            /* Resume the run of a checkpoint. */
+            inv.restore(params.restoreFile(), params, params.newRandomGenerator(1));
+        } else {
+            inv.initSimulation(params, params.newRandomGenerator(1));
+        }
         inv.runSimulation();
         System.out.println("Done Simulation");
     }
@@ -0,0 +1,62 @@
+import sim.kernel.RacingSelection;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Search the (s,S) policy of the inventory system with the smallest average total cost per month,
+ * among the (threshold, capacity) grid of the "optimizer." keys, by racing the policies on common
+ * random numbers (see RacingSelection).
+ */
+public class PolicyOptimizer {
+
+    public static void main(String[] args) throws IOException {
+        SimParams params = SimParams.loadFrom("src/input.params.txt");
+
+        /* Candidate policies, threshold s below capacity S. */
+        int[] thresholds = params.getOptimizerThresholds();
+        int[] capacities = params.getOptimizerCapacities();
+        List<int[]> policies = new ArrayList<>();
+        List<Supplier<InventorySystem>> candidates = new ArrayList<>();
+        for (int s = thresholds[0]; s <= thresholds[1]; s += thresholds[2]) {
+            for (int capacity = capacities[0]; capacity <= capacities[1]; capacity += capacities[2]) {
+                if (s >= capacity) continue;
+                SimParams policyParams = params.with(Map.of(
+                        "threshold", String.valueOf(s),
+                        "capacity", String.valueOf(capacity)));
+                policies.add(new int[]{s, capacity});
+                candidates.add(() -> new InventorySystem(policyParams));
+            }
+        }
+
+        int totalCost = Arrays.asList(new InventorySystem(params).measureNames()).indexOf("avg.total.cost");
+        RacingSelection race = new RacingSelection(params,
+                params.getOptimizerInitialReplications(), params.getOptimizerMaxReplications(),
+                params.getOptimizerLevel(), params.getOptimizerIndifferenceZone(),
+                params.replicationsParallelism());
+
+        long start = System.nanoTime();
+        int best = race.run(candidates, totalCost);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("(s,S) policies %d, replications %d (%d without racing), %.1f seconds%n",
+                policies.size(), race.totalReplications(),
+                (long) policies.size() * params.getOptimizerMaxReplications(), seconds);
+        System.out.println("Remaining policies, by average total cost:");
+        System.out.println("    s      S   replications   avg.total.cost");
+        List<Integer> survivors = new ArrayList<>();
+        for (int c = 0; c < policies.size(); c++) {
+            if (race.isSurvivor(c)) survivors.add(c);
+        }
+        survivors.sort(Comparator.comparingDouble(race::mean));
+        for (int c : survivors) {
+            System.out.printf("%5d  %5d  %13d  %15.3f%s%n", policies.get(c)[0], policies.get(c)[1],
+                    race.numReplications(c), race.mean(c), c == best ? "  best" : "");
+        }
+    }
+}
@@ -1,10 +1,10 @@
-import java.io.File;
-import java.io.FileReader;
+import sim.kernel.AliasTable;
+import sim.kernel.SimProperties;
+
 import java.io.IOException;
-import java.util.Properties;
 
 
-public class SimParams extends Properties {
+public class SimParams extends SimProperties {
 
     private double holdingCost;
     private double shortageCost;
@@ -18,14 +18,15 @@ public class SimParams extends Properties {
     private double deliveryLagMin;
     private double deliveryLagMax;
 
+    /* demand size distribution, sampled by the alias method */
+    private int[] demandSizes;
+    private AliasTable demandSizeDistribution;
+
     private String outFilePath;
 
     public static SimParams loadFrom(String fileName)
             throws IOException {
-        SimParams result = new SimParams();
-        result.load(new FileReader(fileName));
-        result.init();
-        return result;
+        return loadFrom(fileName, SimParams::new);
     }
 
     public double getHoldingCost() {
@@ -44,8 +45,8 @@ public class SimParams extends Properties {
         return incrementalCost;
     }
 
-    private void init() {
-
+    @Override
+    protected void init() {
         holdingCost = Double.parseDouble(getProperty("holding.cost"));
         shortageCost = Double.parseDouble(getProperty("shortage.cost"));
         setupCost = Double.parseDouble(getProperty("setup.cost"));
@@ -56,6 +57,14 @@ public class SimParams extends Properties {
         meanInterDemandTime = Double.parseDouble(getProperty("mean.inter.demand.time", "0.1"));
         deliveryLagMin = Double.parseDouble(getProperty("delivery.lag.min", "0.5"));
         deliveryLagMax = Double.parseDouble(getProperty("delivery.lag.max", "1.0"));
+
+        /* Probabilities, or relative frequencies, of the demand sizes. */
+        demandSizes = getIntList("demand.sizes", "1, 2, 3, 4");
+        double[] demandProbabilities = getDoubleList("demand.probabilities", "1, 2, 2, 1");
+        if (demandProbabilities.length != demandSizes.length) {
+            throw new IllegalArgumentException("demand.probabilities and demand.sizes differ in length");
+        }
+        demandSizeDistribution = new AliasTable(demandProbabilities);
         outFilePath = getProperty("out.file.path", "simulation_out_file.txt");
 
     }
@@ -72,6 +81,18 @@ public class SimParams extends Properties {
         return deliveryLagMax;
     }
 
+    /**
+     * @param outcome outcome of the demand size distribution
+     * @return demand size of the outcome
+     */
+    public int getDemandSize(int outcome) {
+        return demandSizes[outcome];
+    }
+
+    public AliasTable getDemandSizeDistribution() {
+        return demandSizeDistribution;
+    }
+
 
     public int getNumMonths() {
         return numMonths;
@@ -89,6 +110,41 @@ public class SimParams extends Properties {
         return outFilePath;
     }
 
+    /* Search of the (s,S) policy by PolicyOptimizer */
+
+    /**
+     * @return from, to (inclusive) and step of the thresholds s of the candidate policies
+     */
+    public int[] getOptimizerThresholds() {
+        return getIntList("optimizer.thresholds", "0, 60, 5");
+    }
+
+    /**
+     * @return from, to (inclusive) and step of the capacities S of the candidate policies
+     */
+    public int[] getOptimizerCapacities() {
+        return getIntList("optimizer.capacities", "20, 120, 10");
+    }
+
+    public int getOptimizerInitialReplications() {
+        return Integer.parseInt(getProperty("optimizer.initial.replications", "8"));
+    }
+
+    public int getOptimizerMaxReplications() {
+        return Integer.parseInt(getProperty("optimizer.max.replications", "256"));
+    }
+
+    public double getOptimizerLevel() {
+        return Double.parseDouble(getProperty("optimizer.level", "0.95"));
+    }
+
+    /**
+     * @return difference of average total costs not worth telling apart, 0 to race until one policy is left
+     */
+    public double getOptimizerIndifferenceZone() {
+        return Double.parseDouble(getProperty("optimizer.indifference.zone", "0"));
+    }
+
 
 }
 
@@ -1,15 +1,36 @@
+import sim.kernel.TimeStat;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 public class SimStats {
 
     public double totalOrderingCost;
-    public double areaHolding;
-    public double areaShortage;
+    public final TimeStat holding = new TimeStat();
+    public final TimeStat shortage = new TimeStat();
 
     public SimStats() {
             /* Initialize the statistical counters. */
         this.totalOrderingCost = 0;
-        this.areaHolding = 0;
-        this.areaShortage = 0;
+    }
+
+    /**
+     * Write the statistical counters, e.g. to a checkpoint.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeDouble(totalOrderingCost);
+        holding.writeTo(out);
+        shortage.writeTo(out);
+    }
+
+    /**
+     * Replace the statistical counters by the ones written by writeTo().
+     */
+    public void readFrom(DataInput in) throws IOException {
+        totalOrderingCost = in.readDouble();
+        holding.readFrom(in);
+        shortage.readFrom(in);
     }
 
     /**
@@ -19,8 +40,8 @@ public class SimStats {
      */
     public String printReport(SimParams params) {
 
-        double avgHoldingCost = params.getHoldingCost() *  areaHolding / params.getNumMonths();
-        double avgShortageCost = params.getShortageCost() * areaShortage / params.getNumMonths();
+        double avgHoldingCost = params.getHoldingCost() * holding.mean();
+        double avgShortageCost = params.getShortageCost() * shortage.mean();
         double orderingCost = (double)totalOrderingCost / params.getNumMonths();
         double allCosts = avgHoldingCost + avgShortageCost + orderingCost;
         String result = String.format("\n\ncapacity = %3d \n threshold = %3d \n" +
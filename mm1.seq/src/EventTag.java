@@ -0,0 +1,3 @@
+enum EventTag {
+    NONE, ARRIVAL1, DEPARTURE1, ARRIVAL2, DEPARTURE2, END_OF_SIMULATION
+}
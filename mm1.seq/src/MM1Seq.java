@@ -1,8 +1,15 @@
+import sim.kernel.DoubleQueue;
+import sim.kernel.EventList;
+import sim.kernel.ParameterSweep;
+import sim.kernel.ReplicationRunner;
+import sim.kernel.SimEvent;
+import sim.kernel.SimModel;
+import sim.kernel.SimRandomGenerator;
+import sim.kernel.WarmUp;
+
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.LinkedList;
-import java.util.List;
 
 
 /**
@@ -10,7 +17,7 @@ import java.util.List;
  *         Reference: A. M. Law, Simulation Modeling & Analysis 3rd edition,
  *         Problem 1.14, 1.15 page 100
  */
-public class MM1Seq {
+public class MM1Seq implements SimModel {
 
     enum ServerStatus {IDLE, BUSY}
 
@@ -20,15 +27,28 @@ public class MM1Seq {
     ServerStatus server1Status;
     ServerStatus server2Status;
 
-    List<Double> queue1; // record arrival times to calc the delay when starting service on server
-    List<Double> queue2; // record arrival times to calc the delay when starting service on server
+    DoubleQueue queue1; // record arrival times to calc the delay when starting service on server
+    DoubleQueue queue2; // record arrival times to calc the delay when starting service on server
 
 
-    EventList eventList;
+    EventList<EventTag> eventList;
     SimRandomGenerator randGen;
+    SimRandomGenerator arrivalStream, serviceStream, travelStream; // substreams of randGen
     SimStats stats;
     SimParams params;
 
+    WarmUp warmUp; // detected by MSER-5: series 0 is the delays in queue1, 1 in queue2
+
+    public MM1Seq() {
+    }
+
+    /**
+     * @param params input parameters, shared by the replications of the model
+     */
+    public MM1Seq(SimParams params) {
+        this.params = params;
+    }
+
     /**
      * Initialize the simulation.
      *
@@ -37,27 +57,56 @@ public class MM1Seq {
      */
     public void initSimulation(String inputParamsFile) throws IOException {
         /* Read input parameters. */
-        this.params = SimParams.loadFrom(inputParamsFile);
+        SimParams params = SimParams.loadFrom(inputParamsFile);
+        initSimulation(params, params.newRandomGenerator(1));
+    }
+
+    /**
+     * Initialize the simulation. With "warmup.mser5" the end of the warm-up period is detected by
+     * MSER-5 on the delays in queue of the run itself, no random numbers are drawn for it.
+     *
+     * @param params  input parameters
+     * @param randGen random generator of the random variates
+     */
+    public void initSimulation(SimParams params, SimRandomGenerator randGen) {
+        initSimulation(params, randGen, params.warmUp(2));
+    }
+
+    /**
+     * Initialize the simulation.
+     *
+     * @param params  input parameters
+     * @param randGen random generator of the random variates
+     * @param warmUp  warm-up period whose statistics are discarded
+     */
+    void initSimulation(SimParams params, SimRandomGenerator randGen, WarmUp warmUp) {
+        this.params = params;
+        this.warmUp = warmUp;
 
         /* Initialize the  state variables. */
         server1Status = ServerStatus.IDLE;
-        queue1 = new LinkedList<>();
+        queue1 = new DoubleQueue();
 
         server2Status = ServerStatus.IDLE;
-        queue2 = new LinkedList<>();
+        queue2 = new DoubleQueue();
 
         /* Initialize the simulation clock and event list. */
-        this.eventList = new EventList(0.0);
+        this.eventList = new EventList<>(0.0, EventTag.NONE, params.eventListType());
+
+        this.randGen = randGen;
 
-        this.randGen = new SimRandomGenerator(1);
+        /* One substream per kind of variate, so that configurations run on the same seed draw the
+           same random numbers for the same purpose (common random numbers). */
+        this.arrivalStream = randGen.substream();
+        this.serviceStream = randGen.substream();
+        this.travelStream = randGen.substream();
 
         /* Initialize the statistical variables. */
         this.stats = new SimStats();
 
         //Schedule First Arrival
-        SimEvent firstArrival = new SimEvent(EventTag.ARRIVAL1,
-                randGen.exponentialSample(params.getMeanInterArrivalTime()));
-        eventList.add(firstArrival);
+        eventList.schedule(EventTag.ARRIVAL1,
+                arrivalStream.exponentialSample(params.getMeanInterArrivalTime()));
     }
 
 
@@ -66,20 +115,16 @@ public class MM1Seq {
      *
      * @return
      */
-    public SimEvent timing() {
-        /* Check to see whether the event list is empty. */
-        if (eventList.size() == 0) return SimEvent.NONE;
-        SimEvent nextEvent = eventList.removeHeadEvent();
-
-        return nextEvent;
+    public SimEvent<EventTag> timing() {
+        /* The event list returns the NONE event if it is empty. */
+        return eventList.removeHeadEvent();
     }
 
-    private void arrive1(SimEvent ev) {
+    private void arrive1(SimEvent<EventTag> ev) {
         /* Schedule next arrival. */
         double nextArrivalTime = eventList.getTime() +
-                randGen.exponentialSample(params.getMeanInterArrivalTime());
-        SimEvent nextArrivalEvent = new SimEvent(EventTag.ARRIVAL1, nextArrivalTime);
-        eventList.add(nextArrivalEvent);
+                arrivalStream.exponentialSample(params.getMeanInterArrivalTime());
+        eventList.schedule(EventTag.ARRIVAL1, nextArrivalTime);
 
         /* Check to see whether server is busy. */
         if (server1Status == ServerStatus.BUSY) {
@@ -87,13 +132,13 @@ public class MM1Seq {
             queue1.add(ev.time);
         } else {
             /* Server is idle, so arriving customer has a delay of zero. make the server busy*/
+            recordDelay1(0.0);
             server1Status = ServerStatus.BUSY;
             /* Schedule a departure (service completion). */
             double nextDepartureTime = eventList.getTime() +
-                    randGen.exponentialSample(params.getMeanServiceTime1());
-            SimEvent nextDeparture1Event = new SimEvent(EventTag.DEPARTURE1,
+                    serviceStream.exponentialSample(params.getMeanServiceTime1());
+            eventList.schedule(EventTag.DEPARTURE1,
                     nextDepartureTime);
-            eventList.add(nextDeparture1Event);
         }
 
     }
@@ -104,35 +149,33 @@ public class MM1Seq {
      *
      * @param ev
      */
-    private void depart1(SimEvent ev) {
+    private void depart1(SimEvent<EventTag> ev) {
         /* Check to see whether the queue1 is empty. */
-        if (queue1.size() == 0) {
+        if (queue1.isEmpty()) {
             /* The queue1 is empty so make the server idle */
             server1Status = ServerStatus.IDLE;
         } else {
             /* The queue1 is nonempty, so decrement the number of customers in
                 queue1. */
-            double headArrivalTime = queue1.remove(0); //queue1--
+            double headArrivalTime = queue1.remove(); //queue1--
             /* Compute the delay of the customer who is beginning service and update
                 the total delay accumulator. */
             double delay = ev.time - headArrivalTime;
-            stats.totalDelaysInQueue1 += delay;
+            recordDelay1(delay);
 
             /* schedule departure event for this customer*/
             double nextDepartureTime = ev.time +
-                    randGen.exponentialSample(params.getMeanServiceTime1());
-            SimEvent nextDepartureEvent = new SimEvent((EventTag.DEPARTURE1), nextDepartureTime);
-            eventList.add(nextDepartureEvent);
+                    serviceStream.exponentialSample(params.getMeanServiceTime1());
+            eventList.schedule((EventTag.DEPARTURE1), nextDepartureTime);
         }
 
         /* schedule arrival2 event to the server 2 after random uniform travel time*/
-        double nextArrival2Time = ev.time + randGen.uniformSample(0, params.getTravelTime());
-        SimEvent nextArrival2Event = new SimEvent(EventTag.ARRIVAL2, nextArrival2Time);
-        eventList.add(nextArrival2Event);
+        double nextArrival2Time = ev.time + travelStream.uniformSample(0, params.getTravelTime());
+        eventList.schedule(EventTag.ARRIVAL2, nextArrival2Time);
 
     }
 
-    private void arrive2(SimEvent ev) {
+    private void arrive2(SimEvent<EventTag> ev) {
 
         /* Check to see whether server is busy. */
         if (server2Status == ServerStatus.BUSY) {
@@ -140,13 +183,13 @@ public class MM1Seq {
             queue2.add(ev.time);
         } else {
             /* Server is idle, so arriving customer has a delay of zero. make the server busy*/
+            recordDelay2(0.0);
             server2Status = ServerStatus.BUSY;
             /* Schedule a departure (service completion). */
             double nextDepartureTime = eventList.getTime() +
-                    randGen.exponentialSample(params.getMeanServiceTime1());
-            SimEvent nextDepartureEvent = new SimEvent(EventTag.DEPARTURE2,
+                    serviceStream.exponentialSample(params.getMeanServiceTime1());
+            eventList.schedule(EventTag.DEPARTURE2,
                     nextDepartureTime);
-            eventList.add(nextDepartureEvent);
         }
 
     }
@@ -156,32 +199,50 @@ public class MM1Seq {
      *
      * @param nextEvent
      */
-    private void depart2(SimEvent nextEvent) {
+    private void depart2(SimEvent<EventTag> nextEvent) {
         /* update total number of customers passed the system */
         stats.numArrivals++;
 
         /* Check to see whether the queue1 is empty. */
-        if (queue2.size() == 0) {
+        if (queue2.isEmpty()) {
             /* The queue1 is empty so make the server idle */
             server2Status = ServerStatus.IDLE;
         } else {
             /* The queue1 is nonempty, so decrement the number of customers in
                 queue1. */
-            double headArrivalTime = queue2.remove(0); //queue1--
+            double headArrivalTime = queue2.remove(); //queue1--
             /* Compute the delay of the customer who is beginning service and update
                 the total delay accumulator. */
             double delay = nextEvent.time - headArrivalTime;
-            stats.totalDelaysInQueue2 += delay;
+            recordDelay2(delay);
 
             /* schedule departure event for this customer*/
             double nextDepartureTime = nextEvent.time +
-                    randGen.exponentialSample(params.getMeanServiceTime1());
-            SimEvent nextDepartureEvent = new SimEvent((EventTag.DEPARTURE2), nextDepartureTime);
-            eventList.add(nextDepartureEvent);
+                    serviceStream.exponentialSample(params.getMeanServiceTime1());
+            eventList.schedule((EventTag.DEPARTURE2), nextDepartureTime);
         }
 
     }
 
+    private void recordDelay1(double delay) {
+        stats.delaysInQueue1.record(delay);
+        warmUp.record(0, delay, eventList.getTime());
+    }
+
+    private void recordDelay2(double delay) {
+        stats.delaysInQueue2.record(delay);
+        warmUp.record(1, delay, eventList.getTime());
+    }
+
+    /**
+     * Discard the statistics of the warm-up period.
+     */
+    void resetStats() {
+        this.stats = new SimStats();
+        queue1.resetMaxSize();
+        queue2.resetMaxSize();
+    }
+
     /**
      * Update area accumulators for time-average statistics.
      */
@@ -192,18 +253,16 @@ public class MM1Seq {
 
 
 		/* Update area under number-in-queue1 function. */
-        if (server1Status == ServerStatus.BUSY)
-            stats.areaServerStatus1 += timeSinceLastEvent;
+        stats.serverStatus1.accumulate(server1Status == ServerStatus.BUSY ? 1 : 0, timeSinceLastEvent);
 
 		/* Update area under server-busy indicator function. */
-        stats.areaNumInQ1 += (queue1.size() * timeSinceLastEvent);
+        stats.numInQ1.accumulate(queue1.size(), timeSinceLastEvent);
 
 		/* Update area under number-in-queue2 function. */
-        if (server2Status == ServerStatus.BUSY)
-            stats.areaServerStatus2 += timeSinceLastEvent;
+        stats.serverStatus2.accumulate(server2Status == ServerStatus.BUSY ? 1 : 0, timeSinceLastEvent);
 
 		/* Update area under server-busy indicator function. */
-        stats.areaNumInQ2 += (queue2.size() * timeSinceLastEvent);
+        stats.numInQ2.accumulate(queue2.size(), timeSinceLastEvent);
     }
 
     /**
@@ -218,28 +277,35 @@ public class MM1Seq {
         outfile.write(String.format("Max travel time time%11.3f minutes\n\n", params.getTravelTime()));
         outfile.write(String.format("Mean service2 time%16.3f minutes\n\n", params.getMeanServiceTime2()));
         outfile.write(String.format("Total Simulation Time %11.2f\n\n", params.getEndOfSimulation()));
+        if (warmUp.endTime() > 0) {
+            outfile.write(String.format("Warm-up deleted up to%12.3f minutes\n\n", warmUp.endTime()));
+        }
 
 
-        double avgDelayInQueue1 = stats.totalDelaysInQueue1 / stats.numArrivals;
+        double avgDelayInQueue1 = stats.delaysInQueue1.mean();
         outfile.write(String.format("\n\nAveray delay in queue1 = %4.3f minutes",
                 avgDelayInQueue1));
 
         outfile.write(String.format("\n\nAverage number in queue1 = %4.3f",
-                stats.areaNumInQ1 / eventList.getTime()));
+                stats.numInQ1.mean()));
+        outfile.write(String.format("\n\nMax number in queue1 = %d",
+                queue1.maxSize()));
 
         outfile.write(String.format("\n\nServer1 utilization = %4.3f",
-                stats.areaServerStatus1 / eventList.getTime()));
+                stats.serverStatus1.mean()));
 
         /* Calc same stats for server two */
-         double avgDelayInQueue2 = stats.totalDelaysInQueue2 / stats.numArrivals;
+         double avgDelayInQueue2 = stats.delaysInQueue2.mean();
         outfile.write(String.format("\n\nAveray delay in queue2 = %4.3f minutes",
                 avgDelayInQueue2));
 
         outfile.write(String.format("\n\nAverage number in queue2 = %4.3f",
-                stats.areaNumInQ2 / eventList.getTime()));
+                stats.numInQ2.mean()));
+        outfile.write(String.format("\n\nMax number in queue2 = %d",
+                queue2.maxSize()));
 
         outfile.write(String.format("\n\nServer2 utilization = %4.3f",
-                stats.areaServerStatus2 / eventList.getTime()));
+                stats.serverStatus2.mean()));
 
         outfile.write(String.format("\n\nTime simulation ended = %4.3f minutes",
                 eventList.getTime()));
@@ -247,16 +313,27 @@ public class MM1Seq {
     }
 
     public void runSimulation() throws IOException {
+        simulate();
+
+        /* Invoke the report generator and end the simulation. */
+        report();
+    }
 
+    /**
+     * Run the simulation until its end.
+     */
+    void simulate() {
         double endOfSimulationTime = params.getEndOfSimulation();
 
         while (eventList.getTime() < endOfSimulationTime) {
+            /* Discard the statistics collected until the end of the warm-up period. */
+            if (warmUp.endsAt(eventList)) resetStats();
 
             /* Update time-average statistical accumulators. */
             updateTimeAvgStats();
 
-            /*  final SimEvent nextEvent = eventList.removeHeadEvent(); */
-            final SimEvent ev = timing();
+            /*  final SimEvent<EventTag> nextEvent = eventList.removeHeadEvent(); */
+            final SimEvent<EventTag> ev = timing();
 
             /* Invoke the appropriate event */
             EventTag tag = ev.tag;
@@ -285,15 +362,45 @@ public class MM1Seq {
                 break;
             }
         }
+    }
 
-        /* Invoke the report generator and end the simulation. */
-        report();
+    @Override
+    public void replicate(SimRandomGenerator randGen) {
+        initSimulation(params, randGen);
+        simulate();
+    }
 
+    @Override
+    public String[] measureNames() {
+        return new String[]{"avg.delay.in.queue1", "avg.number.in.queue1", "server1.utilization",
+                "avg.delay.in.queue2", "avg.number.in.queue2", "server2.utilization"};
+    }
+
+    @Override
+    public double[] measures() {
+        return new double[]{stats.delaysInQueue1.mean(), stats.numInQ1.mean(), stats.serverStatus1.mean(),
+                stats.delaysInQueue2.mean(), stats.numInQ2.mean(), stats.serverStatus2.mean()};
+    }
+
+    @Override
+    public long numEvents() {
+        return eventList.numEvents();
     }
 
     public static void main(String[] args) throws IOException {
+        SimParams params = SimParams.loadFrom("src/input.params.txt");
+        if (ParameterSweep.isDefined(params)) {
+            /* Scenarios of the "sweep." keys, one CSV row of output measures each. */
+            new ParameterSweep<>(params).run(MM1Seq::new);
+            return;
+        }
+        if (params.replications() > 1) {
+            /* Independent replications, report the confidence intervals of the measures. */
+            System.out.println(new ReplicationRunner(params).run(() -> new MM1Seq(params)));
+            return;
+        }
         MM1Seq mm1Seq = new MM1Seq();
-        mm1Seq.initSimulation("src/input.params.txt");
+        mm1Seq.initSimulation(params, params.newRandomGenerator(1));
         mm1Seq.runSimulation();
     }
 
@@ -1,9 +1,9 @@
-import java.io.FileReader;
+import sim.kernel.SimProperties;
+
 import java.io.IOException;
-import java.util.Properties;
 
 
-public class SimParams extends Properties {
+public class SimParams extends SimProperties {
     private double meanInterArrivalTime;
     private double meanServiceTime1;
     private double meanServiceTime2;
@@ -21,17 +21,15 @@ public class SimParams extends Properties {
 
     public static SimParams loadFrom(String fileName)
             throws IOException {
-        SimParams result = new SimParams();
-        result.load(new FileReader(fileName));
-        result.init();
-        return result;
+        return loadFrom(fileName, SimParams::new);
     }
 
     public double getEndOfSimulation() {
         return endOfSimulation;
     }
 
-    private void init() {
+    @Override
+    protected void init() {
         meanInterArrivalTime = Double.parseDouble(getProperty("mean.arrival.time"));
         meanServiceTime1 = Double.parseDouble(getProperty("mean.service.time1"));
         meanServiceTime2 = Double.parseDouble(getProperty("mean.service.time2"));
@@ -1,24 +1,19 @@
+import sim.kernel.SampleStat;
+import sim.kernel.TimeStat;
 
-
+/**
+ * Wrapper to hold statistical variables.
+ */
 public class SimStats {
     public int numArrivals;
 
-    public double totalDelaysInQueue1;
-    public double totalDelaysInQueue2;
-
-    public double areaNumInQ1;
-    public double areaServerStatus1;
+    public final SampleStat delaysInQueue1 = new SampleStat();
+    public final SampleStat delaysInQueue2 = new SampleStat();
 
-    public double areaNumInQ2;
-    public double areaServerStatus2;
+    public final TimeStat numInQ1 = new TimeStat();
+    public final TimeStat serverStatus1 = new TimeStat();
 
-    public SimStats() {
-        this.numArrivals = 0;
-        this.totalDelaysInQueue1 = 0;
-        this.areaNumInQ1 = 0;
-        this.areaServerStatus1 = 0;
-        this.areaNumInQ2 = 0;
-        this.areaServerStatus2 = 0;
-    }
+    public final TimeStat numInQ2 = new TimeStat();
+    public final TimeStat serverStatus2 = new TimeStat();
 
 }
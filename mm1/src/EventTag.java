@@ -0,0 +1,3 @@
+enum EventTag {
+    NONE, ARRIVAL, DEPARTURE, END_OF_SIMULATION
+}
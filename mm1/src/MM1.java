@@ -1,8 +1,16 @@
+import sim.kernel.DoubleQueue;
+import sim.kernel.EventList;
+import sim.kernel.ParameterSweep;
+import sim.kernel.ReplicationRunner;
+import sim.kernel.SequentialStop;
+import sim.kernel.SimEvent;
+import sim.kernel.SimModel;
+import sim.kernel.SimRandomGenerator;
+import sim.kernel.WarmUp;
+
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.LinkedList;
-import java.util.List;
 
 
 /**
@@ -10,7 +18,7 @@ import java.util.List;
  *         Reference: A. M. Law, Simulation Modeling & Analysis 3rd edition,
  *         Example 1.1 page 7
  */
-public class MM1 {
+public class MM1 implements SimModel {
 
     enum ServerStatus {IDLE, BUSY}
 
@@ -18,14 +26,28 @@ public class MM1 {
      * Status Variables
      */
     ServerStatus serverStatus;
-    List<Double> queue; // record arrival times to calc the delay when starting service on server
+    DoubleQueue queue; // record arrival times to calc the delay when starting service on server
 
 
-    EventList eventList;
+    EventList<EventTag> eventList;
     SimRandomGenerator randGen;
+    SimRandomGenerator arrivalStream, serviceStream; // substreams of randGen
     SimStats stats;
     SimParams params;
 
+    WarmUp warmUp;
+    SequentialStop sequentialStop; // precision-driven end of the run, null for num.customers customers
+
+    public MM1() {
+    }
+
+    /**
+     * @param params input parameters, shared by the replications of the model
+     */
+    public MM1(SimParams params) {
+        this.params = params;
+    }
+
     /**
      * Initialize the simulation.
      *
@@ -34,24 +56,53 @@ public class MM1 {
      */
     public void initSimulation(String inputParamsFile) throws IOException {
         /* Read input parameters. */
-        this.params = SimParams.loadFrom(inputParamsFile);
+        SimParams params = SimParams.loadFrom(inputParamsFile);
+        initSimulation(params, params.newRandomGenerator(1));
+    }
+
+    /**
+     * Initialize the simulation. With "warmup.mser5" the end of the warm-up period is detected by
+     * MSER-5 on the delays in queue of the run itself, no random numbers are drawn for it.
+     *
+     * @param params  input parameters
+     * @param randGen random generator of the random variates
+     */
+    public void initSimulation(SimParams params, SimRandomGenerator randGen) {
+        initSimulation(params, randGen, params.warmUp(1));
+    }
+
+    /**
+     * Initialize the simulation.
+     *
+     * @param params  input parameters
+     * @param randGen random generator of the random variates
+     * @param warmUp  warm-up period whose statistics are discarded
+     */
+    void initSimulation(SimParams params, SimRandomGenerator randGen, WarmUp warmUp) {
+        this.params = params;
+        this.warmUp = warmUp;
+        this.sequentialStop = params.sequentialStop();
 
         /* Initialize the state variables. */
         serverStatus = ServerStatus.IDLE;
-        queue = new LinkedList<>();
+        queue = new DoubleQueue();
 
         /* Initialize the simulation clock and event list. */
-        this.eventList = new EventList(0.0);
+        this.eventList = new EventList<>(0.0, EventTag.NONE, params.eventListType());
+
+        this.randGen = randGen;
 
-        this.randGen = new SimRandomGenerator(1);
+        /* One substream per kind of variate, so that configurations run on the same seed draw the
+           same random numbers for the same purpose (common random numbers). */
+        this.arrivalStream = randGen.substream();
+        this.serviceStream = randGen.substream();
 
         /* Initialize the statistical variables. */
         this.stats = new SimStats();
 
         //Schedule First Arrival
-        SimEvent firstArrival = new SimEvent(EventTag.ARRIVAL,
-                randGen.getRandomSample(params.getMeanInterArrivalTime()));
-        eventList.add(firstArrival);
+        eventList.schedule(EventTag.ARRIVAL,
+                arrivalStream.exponentialSample(params.getMeanInterArrivalTime()));
     }
 
 
@@ -60,20 +111,16 @@ public class MM1 {
      *
      * @return
      */
-    public SimEvent timing() {
-        /* Check to see whether the event list is empty. */
-        if (eventList.size() == 0) return SimEvent.NONE;
-        SimEvent nextEvent = eventList.removeHeadEvent();
-
-        return nextEvent;
+    public SimEvent<EventTag> timing() {
+        /* The event list returns the NONE event if it is empty. */
+        return eventList.removeHeadEvent();
     }
 
-    private void arrive(SimEvent ev) {
+    private void arrive(SimEvent<EventTag> ev) {
         /* Schedule next arrival. */
         double nextArrivalTime = eventList.getTime() +
-                randGen.getRandomSample(params.getMeanInterArrivalTime());
-        SimEvent nextArrivalEvent = new SimEvent(EventTag.ARRIVAL, nextArrivalTime);
-        eventList.add(nextArrivalEvent);
+                arrivalStream.exponentialSample(params.getMeanInterArrivalTime());
+        eventList.schedule(EventTag.ARRIVAL, nextArrivalTime);
 
         stats.numArrivals++;
 
@@ -83,13 +130,13 @@ public class MM1 {
             queue.add(ev.time);
         } else {
             /* Server is idle, so arriving customer has a delay of zero. make the server busy*/
+            recordDelay(0.0);
             serverStatus = ServerStatus.BUSY;
             /* Schedule a departure (service completion). */
             double nextDepartureTime = eventList.getTime() +
-                    randGen.getRandomSample(params.getMeanServiceTime());
-            SimEvent nextDepartureEvent = new SimEvent(EventTag.DEPARTURE,
+                    serviceStream.exponentialSample(params.getMeanServiceTime());
+            eventList.schedule(EventTag.DEPARTURE,
                     nextDepartureTime);
-            eventList.add(nextDepartureEvent);
         }
 
     }
@@ -99,29 +146,42 @@ public class MM1 {
      *
      * @param nextEvent
      */
-    private void depart(SimEvent nextEvent) {
+    private void depart(SimEvent<EventTag> nextEvent) {
         /* Check to see whether the queue is empty. */
-        if (queue.size() == 0) {
+        if (queue.isEmpty()) {
             /* The queue is empty so make the server idle */
             serverStatus = ServerStatus.IDLE;
         } else {
             /* The queue is nonempty, so decrement the number of customers in
                 queue. */
-            double headArrivalTime = queue.remove(0); //queue--
+            double headArrivalTime = queue.remove(); //queue--
             /* Compute the delay of the customer who is beginning service and update
                 the total delay accumulator. */
             double delay = nextEvent.time - headArrivalTime;
-            stats.totalDelaysInQueue += delay;
+            recordDelay(delay);
 
             /* schedule departure event for this customer*/
             double nextDepartureTime = nextEvent.time +
-                    randGen.getRandomSample(params.getMeanServiceTime());
-            SimEvent nextDepartureEvent = new SimEvent((EventTag.DEPARTURE), nextDepartureTime);
-            eventList.add(nextDepartureEvent);
+                    serviceStream.exponentialSample(params.getMeanServiceTime());
+            eventList.schedule((EventTag.DEPARTURE), nextDepartureTime);
         }
 
     }
 
+    private void recordDelay(double delay) {
+        stats.delaysInQueue.record(delay);
+        stats.delaysInQueueBatches.record(delay);
+        warmUp.record(0, delay, eventList.getTime());
+    }
+
+    /**
+     * Discard the statistics of the warm-up period.
+     */
+    void resetStats() {
+        this.stats = new SimStats();
+        queue.resetMaxSize();
+    }
+
     /**
      * Update area accumulators for time-average statistics.
      */
@@ -132,13 +192,12 @@ public class MM1 {
 
 
 	/* Update area under number-in-queue function. */
-       
-        	stats.areaNumInQ += (queue.size() * timeSinceLastEvent);
-
+        stats.numInQ.accumulate(queue.size(), timeSinceLastEvent);
+        stats.numInQBatches.accumulate(queue.size(), timeSinceLastEvent);
 
 	/* Update area under server-busy indicator function. */
-	     if (serverStatus == ServerStatus.BUSY)
-                stats.areaServerStatus += timeSinceLastEvent;
+        stats.serverStatus.accumulate(serverStatus == ServerStatus.BUSY ? 1 : 0, timeSinceLastEvent);
+        stats.serverStatusBatches.accumulate(serverStatus == ServerStatus.BUSY ? 1 : 0, timeSinceLastEvent);
     }
 
     /**
@@ -151,29 +210,54 @@ public class MM1 {
         outfile.write(String.format("Mean interarrival time%11.3f minutes\n\n", params.getMeanInterArrivalTime()));
         outfile.write(String.format("Mean service time%16.3f minutes\n\n", params.getMeanServiceTime()));
         outfile.write(String.format("Number of customers%14d\n\n", params.getTotalNumOfCustomers()));
+        if (sequentialStop != null) {
+            outfile.write(String.format("Relative half-width target%7.3f %s\n\n", sequentialStop.relativeHalfWidth(),
+                    sequentialStop.targetMet() ? "met" : "NOT met, maximum number of events reached"));
+        }
+        if (warmUp.endTime() > 0) {
+            outfile.write(String.format("Warm-up deleted up to%12.3f minutes\n\n", warmUp.endTime()));
+        }
 
 
-        double avgDelayInQueue = stats.totalDelaysInQueue / stats.numArrivals;
+        double avgDelayInQueue = stats.delaysInQueue.mean();
         outfile.write(String.format("\nAverage delay in queue = %4.3f minutes",
                 avgDelayInQueue));
 
         outfile.write(String.format("\n\nAverage number in queue = %4.3f",
-                stats.areaNumInQ / eventList.getTime()));
+                stats.numInQ.mean()));
+        outfile.write(String.format("\n\nMax number in queue = %d",
+                queue.maxSize()));
 
         outfile.write(String.format("\n\nServer utilization = %4.3f",
-                stats.areaServerStatus / eventList.getTime()));
+                stats.serverStatus.mean()));
+        if (params.batchMeans() || sequentialStop != null) {
+            outfile.write("\n\nBatch-means confidence intervals:");
+            outfile.write("\n\nDelay in queue = " + stats.delaysInQueueBatches.format(0.95));
+            outfile.write("\n\nNumber in queue = " + stats.numInQBatches.format(0.95));
+            outfile.write("\n\nServer utilization = " + stats.serverStatusBatches.format(0.95));
+        }
         outfile.write(String.format("\n\nTime simulation ended = %4.3f minutes",
                 eventList.getTime()));
         outfile.close();
     }
 
     public void runSimulation() throws IOException {
+        simulate();
 
-        while (stats.numArrivals < params.getTotalNumOfCustomers()) {
+        /* Invoke the report generator and end the simulation. */
+        report();
+    }
 
+    /**
+     * Run the simulation until its end.
+     */
+    void simulate() {
+        while (!isOver()) {
+            /* Discard the statistics collected until the end of the warm-up period. */
+            if (warmUp.endsAt(eventList)) resetStats();
 
-            /*  final SimEvent nextEvent = eventList.removeHeadEvent(); */
-            final SimEvent nextEvent = timing();
+            /*  final SimEvent<EventTag> nextEvent = eventList.removeHeadEvent(); */
+            final SimEvent<EventTag> nextEvent = timing();
 
 
             /* Update time-average statistical accumulators. */
@@ -196,15 +280,53 @@ public class MM1 {
                 break;
             }
         }
+    }
 
-        /* Invoke the report generator and end the simulation. */
-        report();
+    /**
+     * @return true at the end of the run: after num.customers customers, or in precision mode once the
+     * delay in queue and number in queue estimates are precise enough
+     */
+    boolean isOver() {
+        if (sequentialStop == null) return stats.numArrivals >= params.getTotalNumOfCustomers();
+        return sequentialStop.checkpoint(eventList)
+                && sequentialStop.shouldStop(stats.delaysInQueueBatches, stats.numInQBatches);
+    }
+
+    @Override
+    public void replicate(SimRandomGenerator randGen) {
+        initSimulation(params, randGen);
+        simulate();
+    }
 
+    @Override
+    public String[] measureNames() {
+        return new String[]{"avg.delay.in.queue", "avg.number.in.queue", "server.utilization"};
+    }
+
+    @Override
+    public double[] measures() {
+        return new double[]{stats.delaysInQueue.mean(), stats.numInQ.mean(), stats.serverStatus.mean()};
+    }
+
+    @Override
+    public long numEvents() {
+        return eventList.numEvents();
     }
 
     public static void main(String[] args) throws IOException {
+        SimParams params = SimParams.loadFrom("input.params.txt");
+        if (ParameterSweep.isDefined(params)) {
+            /* Scenarios of the "sweep." keys, one CSV row of output measures each. */
+            new ParameterSweep<>(params).run(MM1::new);
+            return;
+        }
+        if (params.replications() > 1) {
+            /* Independent replications, report the confidence intervals of the measures. */
+            System.out.println(new ReplicationRunner(params).run(() -> new MM1(params)));
+            return;
+        }
         MM1 mm1 = new MM1();
-        mm1.initSimulation("input.params.txt");
+        mm1.initSimulation(params, params.newRandomGenerator(1));
         mm1.runSimulation();
     }
 
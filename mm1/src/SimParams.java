@@ -1,9 +1,9 @@
-import java.io.FileReader;
+import sim.kernel.SimProperties;
+
 import java.io.IOException;
-import java.util.Properties;
 
 
-public class SimParams extends Properties {
+public class SimParams extends SimProperties {
     private int totalNumOfCustomers;
     private double meanInterArrivalTime;
     private double meanServiceTime;
@@ -11,13 +11,11 @@ public class SimParams extends Properties {
 
     public static SimParams loadFrom(String fileName)
             throws IOException {
-        SimParams result = new SimParams();
-        result.load(new FileReader(fileName));
-        result.init();
-        return result;
+        return loadFrom(fileName, SimParams::new);
     }
 
-    private void init() {
+    @Override
+    protected void init() {
         totalNumOfCustomers =
                 Integer.parseInt(getProperty("num.customers"));
         meanInterArrivalTime = Double.parseDouble(getProperty("mean.arrival.time"));
@@ -1,18 +1,21 @@
+import sim.kernel.BatchMeans;
+import sim.kernel.SampleStat;
+import sim.kernel.TimeStat;
 
-
+/**
+ * Wrapper to hold statistical variables.
+ */
 public class SimStats {
     public int numArrivals;
 
-    public double totalDelaysInQueue;
+    public final SampleStat delaysInQueue = new SampleStat();
 
-    public double areaNumInQ;
-    public double areaServerStatus;
+    public final TimeStat numInQ = new TimeStat();
+    public final TimeStat serverStatus = new TimeStat();
 
-    public SimStats() {
-        this.numArrivals = 0;
-        this.totalDelaysInQueue = 0;
-        this.areaNumInQ = 0;
-        this.areaServerStatus = 0;
-    }
+    /* batch means of the same measures, for the confidence intervals of a single run */
+    public final BatchMeans delaysInQueueBatches = new BatchMeans();
+    public final BatchMeans numInQBatches = new BatchMeans();
+    public final BatchMeans serverStatusBatches = new BatchMeans();
 
 }
@@ -1,8 +1,17 @@
+import sim.kernel.DoubleQueue;
+import sim.kernel.EventList;
+import sim.kernel.EventTracer;
+import sim.kernel.ParameterSweep;
+import sim.kernel.ReplicationRunner;
+import sim.kernel.SequentialStop;
+import sim.kernel.SimEvent;
+import sim.kernel.SimModel;
+import sim.kernel.SimRandomGenerator;
+import sim.kernel.WarmUp;
+
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.LinkedList;
-import java.util.List;
 
 
 /**
@@ -10,22 +19,34 @@ import java.util.List;
  *         Reference: A. M. Law, Simulation Modeling & Analysis 3rd edition,
  *         Example 1.1 page 7
  */
-public class MMC {
-
-    enum ServerStatus {IDLE, BUSY}
+public class MMC implements SimModel {
 
     /**
      * Status Variables
      */
-    ServerStatus[] serverStatus;
-    List<Double> queue; // record arrival times to calc the delay when starting service on server
+    ServerPool servers;
+    DoubleQueue queue; // record arrival times to calc the delay when starting service on server
 
 
-    EventList eventList;
+    EventList<EventTag> eventList;
     SimRandomGenerator randGen;
+    SimRandomGenerator arrivalStream, serviceStream; // substreams of randGen
     SimStats stats;
     SimParams params;
 
+    WarmUp warmUp;
+    SequentialStop sequentialStop; // precision-driven end of the run, null for end.of.simulation
+
+    public MMC() {
+    }
+
+    /**
+     * @param params input parameters, shared by the replications of the model
+     */
+    public MMC(SimParams params) {
+        this.params = params;
+    }
+
     /**
      * Initialize the simulation.
      *
@@ -34,29 +55,54 @@ public class MMC {
      */
     public void initSimulation(String inputParamsFile) throws IOException {
         /* Read input parameters. */
-        this.params = SimParams.loadFrom(inputParamsFile);
+        SimParams params = SimParams.loadFrom(inputParamsFile);
+        initSimulation(params, params.newRandomGenerator(1));
+    }
+
+    /**
+     * Initialize the simulation. With "warmup.mser5" the end of the warm-up period is detected by
+     * MSER-5 on the delays in queue of the run itself, no random numbers are drawn for it.
+     *
+     * @param params  input parameters
+     * @param randGen random generator of the random variates
+     */
+    public void initSimulation(SimParams params, SimRandomGenerator randGen) {
+        initSimulation(params, randGen, params.warmUp(1));
+    }
+
+    /**
+     * Initialize the simulation.
+     *
+     * @param params  input parameters
+     * @param randGen random generator of the random variates
+     * @param warmUp  warm-up period whose statistics are discarded
+     */
+    void initSimulation(SimParams params, SimRandomGenerator randGen, WarmUp warmUp) {
+        this.params = params;
+        this.warmUp = warmUp;
+        this.sequentialStop = params.sequentialStop();
 
         /* Initialize the state variables. */
-        int numServers = params.getNumServers();
-        serverStatus = new ServerStatus[numServers];
-        for (int i = 0; i < serverStatus.length; i++) {
-            serverStatus[i] = ServerStatus.IDLE;
-        }
+        servers = new ServerPool(params.getNumServers());
 
-        queue = new LinkedList<>();
+        queue = new DoubleQueue();
 
         /* Initialize the simulation clock and event list. */
-        this.eventList = new EventList(0.0);
+        this.eventList = new EventList<>(0.0, EventTag.NONE, params.eventListType());
 
-        this.randGen = new SimRandomGenerator(1);
+        this.randGen = randGen;
+
+        /* One substream per kind of variate, so that configurations run on the same seed draw the
+           same random numbers for the same purpose (common random numbers). */
+        this.arrivalStream = randGen.substream();
+        this.serviceStream = randGen.substream();
 
         /* Initialize the statistical variables. */
         this.stats = new SimStats();
 
         //Schedule First Arrival
-        SimEvent firstArrival = new SimEvent(EventTag.ARRIVAL,
-                randGen.exponentialSample(params.getMeanInterArrivalTime()));
-        eventList.add(firstArrival);
+        eventList.schedule(EventTag.ARRIVAL,
+                arrivalStream.exponentialSample(params.getMeanInterArrivalTime()));
     }
 
 
@@ -65,77 +111,34 @@ public class MMC {
      *
      * @return
      */
-    public SimEvent timing() {
-        /* Check to see whether the event list is empty. */
-        if (eventList.size() == 0) return SimEvent.NONE;
-        SimEvent nextEvent = eventList.removeHeadEvent();
-
-        return nextEvent;
+    public SimEvent<EventTag> timing() {
+        /* The event list returns the NONE event if it is empty. */
+        return eventList.removeHeadEvent();
     }
 
 
-    /**
-     * Check if all servers were busy
-     * @return false if any was IDLE
-     */
-    private boolean allServersBusy() {
-        for (ServerStatus ss : serverStatus) {
-            if(ss == ServerStatus.IDLE) return false;
-        }
-        return true;
-    }
-
-    /**
-     * Set the first IDLE server in the servers array to be BUSY
-     * @return false if all servers were busy
-     */
-    private boolean setOneMoreBusyServer() {
-        //assert allServersBusy() == false;
-        for (int i = 0; i < serverStatus.length; i++) {
-            if (serverStatus[i] == ServerStatus.IDLE) {
-                serverStatus[i] = ServerStatus.BUSY;
-                return true;
-            }
-        }
-        return false;
-    }
 
-    /**
-     * Free the first BUSY server, set it to be IDLE
-     * @return false if all servers were idles
-     */
-    private boolean freeOneMoreServer() {
-        for (int i = 0; i < serverStatus.length; i++) {
-            if (serverStatus[i] == ServerStatus.BUSY) {
-                serverStatus[i] = ServerStatus.IDLE;
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private void arrive(SimEvent ev) {
+    private void arrive(SimEvent<EventTag> ev) {
         /* Schedule next arrival. */
         double nextArrivalTime = eventList.getTime() +
-                randGen.exponentialSample(params.getMeanInterArrivalTime());
-        SimEvent nextArrivalEvent = new SimEvent(EventTag.ARRIVAL, nextArrivalTime);
-        eventList.add(nextArrivalEvent);
+                arrivalStream.exponentialSample(params.getMeanInterArrivalTime());
+        eventList.schedule(EventTag.ARRIVAL, nextArrivalTime);
 
         /* Check to see whether server is busy. */
-        if (allServersBusy()) {
+        if (servers.allBusy()) {
             /* Server is busy, so increment number of customers in queue. */
             queue.add(ev.time);
         } else {
             /* At least on of the servers is idle set it to by BUSY*/
             /* Server is idle, so arriving customer has a delay of zero. make the server busy*/
-            setOneMoreBusyServer();
+            recordDelay(0.0);
+            int server = servers.seize(ev.time);
 
-            /* Schedule a departure (service completion). */
+            /* Schedule a departure (service completion), the event carries the server index. */
             double nextDepartureTime = eventList.getTime() +
-                    randGen.exponentialSample(params.getMeanServiceTime());
-            SimEvent nextDepartureEvent = new SimEvent(EventTag.DEPARTURE,
-                    nextDepartureTime);
-            eventList.add(nextDepartureEvent);
+                    serviceStream.exponentialSample(params.getMeanServiceTime());
+            eventList.schedule(EventTag.DEPARTURE,
+                    nextDepartureTime, server);
         }
 
     }
@@ -145,32 +148,46 @@ public class MMC {
      *
      * @param nextEvent
      */
-    private void depart(SimEvent nextEvent) {
+    private void depart(SimEvent<EventTag> nextEvent) {
 
         stats.numArrivals++;
 
         /* Check to see whether the queue is empty. */
-        if (queue.size() == 0) {
-            /* The queue is empty so make one the server idle */
-            freeOneMoreServer();
+        if (queue.isEmpty()) {
+            /* The queue is empty so make the server idle */
+            servers.release((int) nextEvent.longData, nextEvent.time);
         } else {
             /* The queue is nonempty, so decrement the number of customers in
                 queue. keep the same server busy , no need to change state */
-            double headArrivalTime = queue.remove(0); //queue--
+            double headArrivalTime = queue.remove(); //queue--
             /* Compute the delay of the customer who is beginning service and update
                 the total delay accumulator. */
             double delay = nextEvent.time - headArrivalTime;
-            stats.totalDelaysInQueue += delay;
+            recordDelay(delay);
 
             /* schedule departure event for this customer*/
             double nextDepartureTime = nextEvent.time +
-                    randGen.exponentialSample(params.getMeanServiceTime());
-            SimEvent nextDepartureEvent = new SimEvent((EventTag.DEPARTURE), nextDepartureTime);
-            eventList.add(nextDepartureEvent);
+                    serviceStream.exponentialSample(params.getMeanServiceTime());
+            eventList.schedule((EventTag.DEPARTURE), nextDepartureTime, nextEvent.longData);
         }
 
     }
 
+    private void recordDelay(double delay) {
+        stats.delaysInQueue.record(delay);
+        stats.delaysInQueueBatches.record(delay);
+        warmUp.record(0, delay, eventList.getTime());
+    }
+
+    /**
+     * Discard the statistics of the warm-up period.
+     */
+    void resetStats() {
+        this.stats = new SimStats();
+        queue.resetMaxSize();
+        servers.resetBusyTime(eventList.getTime());
+    }
+
     /**
      * Update area accumulators for time-average statistics.
      */
@@ -181,14 +198,12 @@ public class MMC {
 
 
 		/* Update area under server-busy indicator function. */
-        for (ServerStatus ss : serverStatus) {
-            if (ss == ServerStatus.BUSY) {
-                stats.areaServerStatus += timeSinceLastEvent;
-            }
-        }
+        stats.numBusyServers.accumulate(servers.numBusy(), timeSinceLastEvent);
+        stats.numBusyServersBatches.accumulate(servers.numBusy(), timeSinceLastEvent);
 
 		/* Update area under number-in-queue function. */
-        stats.areaNumInQ += (queue.size() * timeSinceLastEvent);
+        stats.numInQ.accumulate(queue.size(), timeSinceLastEvent);
+        stats.numInQBatches.accumulate(queue.size(), timeSinceLastEvent);
     }
 
     /**
@@ -203,30 +218,63 @@ public class MMC {
         outfile.write(String.format("Mean inter-arrival time%11.3f minutes\n\n", params.getMeanInterArrivalTime()));
         outfile.write(String.format("Mean service time%16.3f minutes\n\n", params.getMeanServiceTime()));
         outfile.write(String.format("End of Simulation %14.2f\n\n", params.getEndOfSimulation()));
+        if (sequentialStop != null) {
+            outfile.write(String.format("Relative half-width target%7.3f %s\n\n", sequentialStop.relativeHalfWidth(),
+                    sequentialStop.targetMet() ? "met" : "NOT met, maximum number of events reached"));
+        }
+        if (warmUp.endTime() > 0) {
+            outfile.write(String.format("Warm-up deleted up to%12.3f minutes\n\n", warmUp.endTime()));
+        }
 
 
-        double avgDelayInQueue = stats.totalDelaysInQueue / stats.numArrivals;
+        double avgDelayInQueue = stats.delaysInQueue.mean();
         outfile.write(String.format("\n\nAverage delay in queue = %4.3f minutes",
                 avgDelayInQueue));
 
         outfile.write(String.format("\n\nAverage number in queue = %4.3f",
-                stats.areaNumInQ / eventList.getTime()));
+                stats.numInQ.mean()));
+        outfile.write(String.format("\n\nMax number in queue = %d",
+                queue.maxSize()));
 
         outfile.write(String.format("\n\nServer utilization = %4.3f",
-                stats.areaServerStatus / eventList.getTime()/ numServers));
+                stats.numBusyServers.mean() / numServers));
+        for (int i = 0; i < numServers; i++) {
+            outfile.write(String.format("\n\nServer %d utilization = %4.3f",
+                    i, servers.utilization(i, eventList.getTime())));
+        }
+        if (params.batchMeans() || sequentialStop != null) {
+            outfile.write("\n\nBatch-means confidence intervals:");
+            outfile.write("\n\nDelay in queue = " + stats.delaysInQueueBatches.format(0.95));
+            outfile.write("\n\nNumber in queue = " + stats.numInQBatches.format(0.95));
+            outfile.write("\n\nNumber of busy servers = " + stats.numBusyServersBatches.format(0.95));
+        }
         outfile.write(String.format("\n\nTime simulation ended = %4.3f minutes",
                 eventList.getTime()));
         outfile.close();
     }
 
     public void runSimulation() throws IOException {
+        /* Trace the events to the "trace.file" file with "trace.level" events, see MMCReplay. */
+        try (EventTracer tracer = params.eventTracer(EventTag.class)) {
+            eventList.trace(tracer);
+            simulate();
+            eventList.trace(null);
+        }
 
-        double endOfSimulationTime = params.getEndOfSimulation();
-        while (eventList.getTime() < endOfSimulationTime) {
+        /* Invoke the report generator and end the simulation. */
+        report();
+    }
 
+    /**
+     * Run the simulation until its end.
+     */
+    void simulate() {
+        while (!isOver()) {
+            /* Discard the statistics collected until the end of the warm-up period. */
+            if (warmUp.endsAt(eventList)) resetStats();
 
-            /*  final SimEvent nextEvent = eventList.removeHeadEvent(); */
-            final SimEvent nextEvent = timing();
+            /*  final SimEvent<EventTag> nextEvent = eventList.removeHeadEvent(); */
+            final SimEvent<EventTag> nextEvent = timing();
 
             /* Update time-average statistical accumulators. */
             updateTimeAvgStats();
@@ -248,15 +296,54 @@ public class MMC {
                 break;
             }
         }
+    }
 
-        /* Invoke the report generator and end the simulation. */
-        report();
+    /**
+     * @return true at the end of the run: at end.of.simulation, or in precision mode once the delay in
+     * queue and number in queue estimates are precise enough
+     */
+    boolean isOver() {
+        if (sequentialStop == null) return eventList.getTime() >= params.getEndOfSimulation();
+        return sequentialStop.checkpoint(eventList)
+                && sequentialStop.shouldStop(stats.delaysInQueueBatches, stats.numInQBatches);
+    }
+
+    @Override
+    public void replicate(SimRandomGenerator randGen) {
+        initSimulation(params, randGen);
+        simulate();
+    }
+
+    @Override
+    public String[] measureNames() {
+        return new String[]{"avg.delay.in.queue", "avg.number.in.queue", "server.utilization"};
+    }
 
+    @Override
+    public double[] measures() {
+        return new double[]{stats.delaysInQueue.mean(), stats.numInQ.mean(),
+                stats.numBusyServers.mean() / params.getNumServers()};
+    }
+
+    @Override
+    public long numEvents() {
+        return eventList.numEvents();
     }
 
     public static void main(String[] args) throws IOException {
+        SimParams params = SimParams.loadFrom("src/input.params.txt");
+        if (ParameterSweep.isDefined(params)) {
+            /* Scenarios of the "sweep." keys, one CSV row of output measures each. */
+            new ParameterSweep<>(params).run(MMC::new);
+            return;
+        }
+        if (params.replications() > 1) {
+            /* Independent replications, report the confidence intervals of the measures. */
+            System.out.println(new ReplicationRunner(params).run(() -> new MMC(params)));
+            return;
+        }
         MMC mmc = new MMC();
-        mmc.initSimulation("src/input.params.txt");
+        mmc.initSimulation(params, params.newRandomGenerator(1));
         mmc.runSimulation();
     }
 
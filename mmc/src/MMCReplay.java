@@ -0,0 +1,86 @@
+import sim.kernel.DoubleQueue;
+import sim.kernel.EventTracer;
+import sim.kernel.TraceReader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Rebuild the SimStats of an MMC run from its event trace ("trace.level = events"), without
+ * running the simulation again: the ARRIVAL and DEPARTURE events of the trace drive the same
+ * queue and servers as the model, no random number is drawn. The trace must hold every event
+ * (trace.sampling = 1). The statistics cover the whole trace, a warm-up is not deleted.
+ */
+public class MMCReplay implements TraceReader.Handler {
+
+    final SimStats stats = new SimStats();
+    final ServerPool servers;
+    final DoubleQueue queue = new DoubleQueue();
+    double time;
+
+    public MMCReplay(int numServers) {
+        this.servers = new ServerPool(numServers);
+    }
+
+    /**
+     * @return statistics of the run that wrote the trace
+     */
+    public static MMCReplay replay(TraceReader trace, int numServers) {
+        if (trace.sampling() != 1) throw new IllegalArgumentException("sampled trace, 1/" + trace.sampling());
+        String[] tags = Arrays.stream(EventTag.values()).map(Enum::name).toArray(String[]::new);
+        if (!Arrays.equals(trace.tagNames(), tags)) throw new IllegalArgumentException("not an MMC trace");
+        MMCReplay result = new MMCReplay(numServers);
+        trace.replay(result);
+        return result;
+    }
+
+    @Override
+    public void record(int kind, int code, double eventTime, long longData, double doubleData) {
+        if (kind != EventTracer.EVENT) return;
+
+        /* Update time-average statistical accumulators, as MMC.updateTimeAvgStats(). */
+        double timeSinceLastEvent = eventTime - time;
+        time = eventTime;
+        stats.numBusyServers.accumulate(servers.numBusy(), timeSinceLastEvent);
+        stats.numBusyServersBatches.accumulate(servers.numBusy(), timeSinceLastEvent);
+        stats.numInQ.accumulate(queue.size(), timeSinceLastEvent);
+        stats.numInQBatches.accumulate(queue.size(), timeSinceLastEvent);
+
+        if (code == EventTag.ARRIVAL.ordinal()) {
+            if (servers.allBusy()) {
+                queue.add(eventTime);
+            } else {
+                recordDelay(0.0);
+                servers.seize(eventTime);
+            }
+        } else if (code == EventTag.DEPARTURE.ordinal()) {
+            stats.numArrivals++;
+            if (queue.isEmpty()) {
+                servers.release((int) longData, eventTime);
+            } else {
+                recordDelay(eventTime - queue.remove());
+            }
+        }
+    }
+
+    private void recordDelay(double delay) {
+        stats.delaysInQueue.record(delay);
+        stats.delaysInQueueBatches.record(delay);
+    }
+
+    public static void main(String[] args) throws IOException {
+        SimParams params = SimParams.loadFrom("src/input.params.txt");
+        Path file = Path.of(args.length > 0 ? args[0] : params.getProperty("trace.file", "trace.bin"));
+        try (TraceReader trace = new TraceReader(file)) {
+            System.out.println(trace.summary());
+            MMCReplay replay = replay(trace, params.getNumServers());
+            System.out.printf("%nReplayed until %4.3f minutes%n", replay.time);
+            System.out.printf("Average delay in queue = %4.3f minutes%n", replay.stats.delaysInQueue.mean());
+            System.out.printf("Average number in queue = %4.3f%n", replay.stats.numInQ.mean());
+            System.out.printf("Max number in queue = %d%n", replay.queue.maxSize());
+            System.out.printf("Server utilization = %4.3f%n",
+                    replay.stats.numBusyServers.mean() / params.getNumServers());
+        }
+    }
+}
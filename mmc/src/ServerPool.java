@@ -0,0 +1,119 @@
+import java.util.Arrays;
+
+/**
+ * Pool of identical servers. The idle servers are kept in a stack of indices, so finding an idle
+ * server, seizing and releasing a server take O(1) time whatever the number of servers.
+ * Tracks the busy time of each server for the individual utilizations. IS NOT thread safe.
+ */
+public class ServerPool {
+
+    final private int[] idleServers; // stack of the indices of the idle servers
+    private int numIdle;
+
+    final private boolean[] busy;
+    final private double[] busySince; // start of the current busy period of each busy server
+    final private double[] busyTime;  // total of the ended busy periods of each server
+    private double startTime;         // start of the observation period
+
+    /**
+     * @param numServers number of servers, all idle
+     */
+    public ServerPool(int numServers) {
+        idleServers = new int[numServers];
+        busy = new boolean[numServers];
+        busySince = new double[numServers];
+        busyTime = new double[numServers];
+        /* Server 0 on top, so the servers are seized in index order at first. */
+        for (int i = 0; i < numServers; i++) {
+            idleServers[i] = numServers - 1 - i;
+        }
+        numIdle = numServers;
+    }
+
+    public int size() {
+        return busy.length;
+    }
+
+    public int numIdle() {
+        return numIdle;
+    }
+
+    public int numBusy() {
+        return busy.length - numIdle;
+    }
+
+    public boolean allBusy() {
+        return numIdle == 0;
+    }
+
+    public boolean isBusy(int server) {
+        return busy[server];
+    }
+
+    /**
+     * Make an idle server busy.
+     *
+     * @param time current simulation time
+     * @return index of the seized server
+     * @throws IllegalStateException if all servers are busy
+     */
+    public int seize(double time) {
+        if (numIdle == 0) throw new IllegalStateException("All servers are busy");
+        int server = idleServers[--numIdle];
+        busy[server] = true;
+        busySince[server] = time;
+        return server;
+    }
+
+    /**
+     * Make a busy server idle.
+     *
+     * @param server index of the server
+     * @param time   current simulation time
+     * @throws IllegalStateException if the server is idle
+     */
+    public void release(int server, double time) {
+        if (!busy[server]) throw new IllegalStateException("Server " + server + " is idle");
+        busy[server] = false;
+        busyTime[server] += time - busySince[server];
+        idleServers[numIdle++] = server;
+    }
+
+    /**
+     * Restart the busy times from time, e.g. at the end of a warm-up period.
+     *
+     * @param time current simulation time
+     */
+    public void resetBusyTime(double time) {
+        for (int i = 0; i < busy.length; i++) {
+            busyTime[i] = 0;
+            if (busy[i]) busySince[i] = time;
+        }
+        startTime = time;
+    }
+
+    /**
+     * @param server index of the server
+     * @param time   current simulation time
+     * @return time the server was busy up to time, the current busy period included
+     */
+    public double busyTime(int server, double time) {
+        return busy[server] ? busyTime[server] + time - busySince[server] : busyTime[server];
+    }
+
+    /**
+     * @param server index of the server
+     * @param time   current simulation time, the end of the observation period
+     * @return proportion of time the server was busy since the start of the observation period
+     */
+    public double utilization(int server, double time) {
+        double duration = time - startTime;
+        return duration > 0 ? busyTime(server, time) / duration : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ServerPool{size: %d, idle: %d, busy: %s}",
+                busy.length, numIdle, Arrays.toString(busy));
+    }
+}
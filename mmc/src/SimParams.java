@@ -1,9 +1,9 @@
-import java.io.FileReader;
+import sim.kernel.SimProperties;
+
 import java.io.IOException;
-import java.util.Properties;
 
 
-public class SimParams extends Properties {
+public class SimParams extends SimProperties {
     private double meanInterArrivalTime;
     private double meanServiceTime;
     private double endOfSimulation;
@@ -12,13 +12,11 @@ public class SimParams extends Properties {
 
     public static SimParams loadFrom(String fileName)
             throws IOException {
-        SimParams result = new SimParams();
-        result.load(new FileReader(fileName));
-        result.init();
-        return result;
+        return loadFrom(fileName, SimParams::new);
     }
 
-    private void init() {
+    @Override
+    protected void init() {
         meanInterArrivalTime = Double.parseDouble(getProperty("mean.arrival.time"));
         meanServiceTime = Double.parseDouble(getProperty("mean.service.time"));
         endOfSimulation = Double.parseDouble(getProperty("end.of.simulation"));
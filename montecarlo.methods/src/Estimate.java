@@ -0,0 +1,53 @@
+import sim.kernel.Quantiles;
+
+/**
+ * Monte Carlo estimate of a quantity, with its standard error.
+ */
+public final class Estimate {
+
+    final String method;
+    final double value;
+    final double standardError;
+    final long numSamples; // evaluations of the integrand
+
+    Estimate(String method, double value, double standardError, long numSamples) {
+        this.method = method;
+        this.value = value;
+        this.standardError = standardError;
+        this.numSamples = numSamples;
+    }
+
+    public double value() {
+        return value;
+    }
+
+    public double standardError() {
+        return standardError;
+    }
+
+    public long numSamples() {
+        return numSamples;
+    }
+
+    /**
+     * @param level confidence level, e.g. 0.95
+     * @return half-width of the normal confidence interval
+     */
+    public double halfWidth(double level) {
+        return Quantiles.normal(1 - (1 - level) / 2) * standardError;
+    }
+
+    /**
+     * @param plain estimate of the same quantity by a less efficient estimator
+     * @return samples the plain estimator would need to reach the standard error of this one
+     */
+    public double equivalentSamples(Estimate plain) {
+        return plain.numSamples * Math.pow(plain.standardError / standardError, 2);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-22s %12.8f +/- %.2e (std. error, %d samples)",
+                method, value, standardError, numSamples);
+    }
+}
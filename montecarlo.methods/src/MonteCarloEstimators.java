@@ -0,0 +1,222 @@
+import sim.kernel.SampleStat;
+
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.ToDoubleFunction;
+import java.util.random.RandomGenerator;
+
+/**
+ * Estimators of integrals, each returning its standard error, from the worst (hit-or-miss) to the
+ * variance-reduced ones. For the same number of evaluations of the integrand, the standard error
+ * of a variance-reduced estimator is often orders of magnitude smaller.
+ * <ul>
+ * <li>hitOrMiss: fraction of uniform points of the box [a, b] x [0, maxY] under f,</li>
+ * <li>sampleMean: (b - a) times the mean of f at uniform points,</li>
+ * <li>controlVariate: sample mean corrected by a function g of known integral, correlated with f,</li>
+ * <li>stratified: sample mean on equal strata of [a, b], same number of points per stratum,</li>
+ * <li>importanceSampling: mean of f / p at points of a density p shaped like f,</li>
+ * <li>latinHypercube, quasiMonteCarlo: mean of a function over the unit cube [0, 1[^d, at the
+ * points of independent Latin hypercube designs or randomly shifted Halton sequences, the
+ * standard error being computed over these independent replicates.</li>
+ * </ul>
+ */
+public class MonteCarloEstimators {
+
+    /* bases of the Halton sequence, one per dimension */
+    private static final int[] PRIMES = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41, 43, 47, 53};
+
+    private MonteCarloEstimators() {
+    }
+
+    /**
+     * @param maxY upper bound of the positive function f on [a, b]
+     */
+    public static Estimate hitOrMiss(DoubleUnaryOperator f, double a, double b, double maxY,
+                                     long n, RandomGenerator rnd) {
+        long under = 0;
+        for (long i = 0; i < n; i++) {
+            double x = a + rnd.nextDouble() * (b - a);
+            if (rnd.nextDouble() * maxY <= f.applyAsDouble(x)) under++;
+        }
+        double p = (double) under / n;
+        double box = (b - a) * maxY;
+        return new Estimate("hit-or-miss", box * p, box * Math.sqrt(p * (1 - p) / n), n);
+    }
+
+    public static Estimate sampleMean(DoubleUnaryOperator f, double a, double b, long n, RandomGenerator rnd) {
+        SampleStat stat = new SampleStat();
+        for (long i = 0; i < n; i++) {
+            stat.record(f.applyAsDouble(a + rnd.nextDouble() * (b - a)));
+        }
+        return new Estimate("sample mean", (b - a) * stat.mean(), (b - a) * stat.stdDev() / Math.sqrt(n), n);
+    }
+
+    /**
+     * Estimate the mean of f - beta (g - mean of g), beta being the least-squares coefficient of
+     * f on g estimated from the same points.
+     *
+     * @param g         control variate, correlated with f
+     * @param gIntegral integral of g on [a, b]
+     */
+    public static Estimate controlVariate(DoubleUnaryOperator f, DoubleUnaryOperator g, double gIntegral,
+                                          double a, double b, long n, RandomGenerator rnd) {
+        double gMean = gIntegral / (b - a);
+        /* sums of the deviations of g from its known mean, of f from its first value (stability) */
+        double f0 = Double.NaN;
+        double sumF = 0, sumG = 0, sumFF = 0, sumGG = 0, sumFG = 0;
+        for (long i = 0; i < n; i++) {
+            double x = a + rnd.nextDouble() * (b - a);
+            double fx = f.applyAsDouble(x);
+            if (i == 0) f0 = fx;
+            double df = fx - f0;
+            double dg = g.applyAsDouble(x) - gMean;
+            sumF += df;
+            sumG += dg;
+            sumFF += df * df;
+            sumGG += dg * dg;
+            sumFG += df * dg;
+        }
+        double meanF = sumF / n;
+        double meanG = sumG / n;
+        double varF = (sumFF - n * meanF * meanF) / (n - 1);
+        double varG = (sumGG - n * meanG * meanG) / (n - 1);
+        double covFG = (sumFG - n * meanF * meanG) / (n - 1);
+        double beta = varG > 0 ? covFG / varG : 0;
+        double mean = f0 + meanF - beta * meanG;
+        double variance = Math.max(0, varF - 2 * beta * covFG + beta * beta * varG);
+        return new Estimate("control variate", (b - a) * mean, (b - a) * Math.sqrt(variance / n), n);
+    }
+
+    /**
+     * @param numStrata number of equal strata of [a, b], each one gets n / numStrata points (at least 2)
+     */
+    public static Estimate stratified(DoubleUnaryOperator f, double a, double b, long n, int numStrata,
+                                      RandomGenerator rnd) {
+        long perStratum = n / numStrata;
+        if (perStratum < 2) throw new IllegalArgumentException("less than 2 points per stratum");
+        double width = (b - a) / numStrata;
+        double sum = 0;
+        double variance = 0;
+        SampleStat stat = new SampleStat();
+        for (int s = 0; s < numStrata; s++) {
+            stat.reset();
+            double low = a + s * width;
+            for (long i = 0; i < perStratum; i++) {
+                stat.record(f.applyAsDouble(low + rnd.nextDouble() * width));
+            }
+            sum += width * stat.mean();
+            variance += width * width * stat.variance() / perStratum;
+        }
+        return new Estimate("stratified", sum, Math.sqrt(variance), perStratum * numStrata);
+    }
+
+    /**
+     * @param density    density p of the sampling distribution, positive where f is not 0
+     * @param inverseCdf inverse of the distribution function of p, to sample it by inverse transform
+     */
+    public static Estimate importanceSampling(DoubleUnaryOperator f, DoubleUnaryOperator density,
+                                              DoubleUnaryOperator inverseCdf, long n, RandomGenerator rnd) {
+        SampleStat stat = new SampleStat();
+        for (long i = 0; i < n; i++) {
+            double x = inverseCdf.applyAsDouble(rnd.nextDouble());
+            stat.record(f.applyAsDouble(x) / density.applyAsDouble(x));
+        }
+        return new Estimate("importance sampling", stat.mean(), stat.stdDev() / Math.sqrt(n), n);
+    }
+
+    /**
+     * Mean of f over the unit cube, from independent Latin hypercube designs: each coordinate of
+     * the points of a design takes one value in each of the points strata.
+     *
+     * @param dimension  dimension of the cube
+     * @param points     points of one design
+     * @param replicates independent designs, at least 2
+     */
+    public static Estimate latinHypercube(ToDoubleFunction<double[]> f, int dimension, int points,
+                                          int replicates, RandomGenerator rnd) {
+        if (replicates < 2) throw new IllegalArgumentException("replicates < 2");
+        int[][] strata = new int[dimension][points];
+        double[] x = new double[dimension];
+        SampleStat designMeans = new SampleStat();
+        for (int r = 0; r < replicates; r++) {
+            for (int[] permutation : strata) {
+                shuffle(permutation, rnd);
+            }
+            double sum = 0;
+            for (int i = 0; i < points; i++) {
+                for (int d = 0; d < dimension; d++) {
+                    x[d] = (strata[d][i] + rnd.nextDouble()) / points;
+                }
+                sum += f.applyAsDouble(x);
+            }
+            designMeans.record(sum / points);
+        }
+        return new Estimate("Latin hypercube", designMeans.mean(), designMeans.stdDev() / Math.sqrt(replicates),
+                (long) points * replicates);
+    }
+
+    private static void shuffle(int[] permutation, RandomGenerator rnd) {
+        for (int i = 0; i < permutation.length; i++) {
+            permutation[i] = i;
+        }
+        for (int i = permutation.length - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            int tmp = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = tmp;
+        }
+    }
+
+    /**
+     * Mean of f over the unit cube, by randomized quasi-Monte Carlo: the first points of the Halton
+     * sequence, shifted modulo 1 by an independent uniform vector in each replicate
+     * (Cranley-Patterson rotation), so the replicates are independent unbiased estimates.
+     *
+     * @param dimension  dimension of the cube, at most 16
+     * @param points     points of the sequence used by each replicate
+     * @param replicates independent random shifts, at least 2
+     */
+    public static Estimate quasiMonteCarlo(ToDoubleFunction<double[]> f, int dimension, int points,
+                                           int replicates, RandomGenerator rnd) {
+        if (dimension > PRIMES.length) throw new IllegalArgumentException("dimension > " + PRIMES.length);
+        if (replicates < 2) throw new IllegalArgumentException("replicates < 2");
+        double[][] halton = new double[points][dimension];
+        for (int i = 0; i < points; i++) {
+            for (int d = 0; d < dimension; d++) {
+                halton[i][d] = radicalInverse(i + 1, PRIMES[d]);
+            }
+        }
+        double[] shift = new double[dimension];
+        double[] x = new double[dimension];
+        SampleStat replicateMeans = new SampleStat();
+        for (int r = 0; r < replicates; r++) {
+            for (int d = 0; d < dimension; d++) {
+                shift[d] = rnd.nextDouble();
+            }
+            double sum = 0;
+            for (double[] point : halton) {
+                for (int d = 0; d < dimension; d++) {
+                    double v = point[d] + shift[d];
+                    x[d] = v < 1 ? v : v - 1;
+                }
+                sum += f.applyAsDouble(x);
+            }
+            replicateMeans.record(sum / points);
+        }
+        return new Estimate("quasi-Monte Carlo", replicateMeans.mean(),
+                replicateMeans.stdDev() / Math.sqrt(replicates), (long) points * replicates);
+    }
+
+    /**
+     * @return the digits of i in the base, mirrored around the radix point
+     */
+    static double radicalInverse(long i, int base) {
+        double result = 0;
+        double factor = 1.0 / base;
+        while (i > 0) {
+            result += (i % base) * factor;
+            i /= base;
+            factor /= base;
+        }
+        return result;
+    }
+}
@@ -1,3 +1,8 @@
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
 public class MonteCarloMethods {
 
     //init random generator with different seed each time
@@ -21,14 +26,17 @@ public class MonteCarloMethods {
         return 4.0 * (double) inCircle / totalPoints;
     }
 
-    static double calculatePiStream(long totalPoints) {
-        long inCircle = LongStream.range(0, totalPoints)
-//                .parallel()  // multi-threading stream
-                .filter(i -> {
-                    double x = rnd.nextDouble();
-                    double y = rnd.nextDouble();
-                    return Math.sqrt(x * x + y * y) < 1.0;
-                }).count();
+    /**
+     * Parallel version of calculatePi, on all the cores, see ParallelMonteCarlo.
+     *
+     * @param seed seed of the points, the estimate is the same whatever the number of threads
+     */
+    static double calculatePiStream(long totalPoints, long seed) {
+        long inCircle = ParallelMonteCarlo.count(random -> {
+            double x = random.nextDouble();
+            double y = random.nextDouble();
+            return Math.sqrt(x * x + y * y) < 1.0;
+        }, totalPoints, seed);
 
         return 4.0 * (double) inCircle / totalPoints;
     }
@@ -52,35 +60,69 @@ public class MonteCarloMethods {
         return (double) underF / totalPoints * range * maxY;
     }
 
+    /**
+     * Parallel version of calcFIntegral, on all the cores, see ParallelMonteCarlo.
+     *
+     * @param seed seed of the points, the estimate is the same whatever the number of threads
+     */
     static double calcFIntegralStream(double a, double b,
-                                      int maxY, long totalPoints) {
+                                      int maxY, long totalPoints, long seed) {
         final double range = b - a;
-        long underF = LongStream.range(0, totalPoints)
-//                .parallel()  // multi-threading stream
-                .filter(i -> {
-                    double x = a + rnd.nextDouble() * range; // random value in range [a, b[
-                    double y = rnd.nextDouble() * maxY;
-                    return y <= f(x);
-                }).count();
+        long underF = ParallelMonteCarlo.count(random -> {
+            double x = a + random.nextDouble() * range; // random value in range [a, b[
+            double y = random.nextDouble() * maxY;
+            return y <= f(x);
+        }, totalPoints, seed);
 
         return (double) underF / totalPoints * range * maxY;
     }
 
+    /**
+     * Estimate Pi with every estimator of MonteCarloEstimators on the same budget of evaluations,
+     * and print how many hit-or-miss points each one is worth.
+     */
+    static void compareEstimators(long totalPoints) {
+        RandomGenerator random = new SplittableRandom(1);
+        int replicates = 16;
+        int points = (int) (totalPoints / replicates);
+        /* Pi is the integral of 4 sqrt(1 - x^2) on [0, 1], or 4 times the area of the quarter disk */
+        Estimate plain = MonteCarloEstimators.hitOrMiss(x -> 4 * Math.sqrt(1 - x * x), 0, 1, 4, totalPoints, random);
+        List<Estimate> estimates = List.of(
+                plain,
+                MonteCarloEstimators.sampleMean(x -> 4 * Math.sqrt(1 - x * x), 0, 1, totalPoints, random),
+                MonteCarloEstimators.controlVariate(x -> 4 * Math.sqrt(1 - x * x), x -> 4 * (1 - x * x), 8.0 / 3,
+                        0, 1, totalPoints, random),
+                MonteCarloEstimators.stratified(x -> 4 * Math.sqrt(1 - x * x), 0, 1, totalPoints, 1000, random),
+                /* density (4 - 2x) / 3 decreases like the integrand, sampled as 2 - sqrt(4 - 3u) */
+                MonteCarloEstimators.importanceSampling(x -> 4 * Math.sqrt(1 - x * x), x -> (4 - 2 * x) / 3,
+                        u -> 2 - Math.sqrt(4 - 3 * u), totalPoints, random),
+                MonteCarloEstimators.latinHypercube(p -> p[0] * p[0] + p[1] * p[1] <= 1 ? 4 : 0, 2,
+                        points, replicates, random),
+                MonteCarloEstimators.quasiMonteCarlo(p -> p[0] * p[0] + p[1] * p[1] <= 1 ? 4 : 0, 2,
+                        points, replicates, random));
+        System.out.format("Pi estimators, %d evaluations each (Pi = %.8f)%n", totalPoints, Math.PI);
+        for (Estimate estimate : estimates) {
+            System.out.format("%s, worth %.3g hit-or-miss points%n", estimate, estimate.equivalentSamples(plain));
+        }
+    }
+
     public static void main(String[] args) {
 
         long totalPoints = 100000000l;
 
         /* PI */
-        double pi = calculatePiStream(totalPoints);
+        double pi = calculatePiStream(totalPoints, 1);
 //        double pi = calculatePi(totalPoints);
         System.out.format("Run Pi experiment for %d points, Pi = %f \n",
                 totalPoints, pi);
 
         /* Integration */
-        double integral = calcFIntegralStream(0, 1, 10, totalPoints);
+        double integral = calcFIntegralStream(0, 1, 10, totalPoints, 1);
 //        double integral = calcFIntegral(0, 1, 10, totalPoints);
         System.out.format("Run integral experiment for %d points, integral = %f \n",
                 totalPoints, integral);
+
+        compareEstimators(1000000);
     }
 }
 
@@ -0,0 +1,78 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Count the successes of independent Monte Carlo trials on a ForkJoinPool.
+ * <p>
+ * The budget of trials is halved recursively until a block has at most BLOCK_SIZE trials, and
+ * each half gets its own generator, split from its parent's one (SplittableRandom.split()). The
+ * workers share no generator and no counter: each block counts its own successes and the counts
+ * are added on the way back up. The tree of blocks and generators depends only on the budget and
+ * the seed, so the count is the same whatever the number of threads.
+ */
+public class ParallelMonteCarlo {
+
+    static final long BLOCK_SIZE = 1 << 16;
+
+    /**
+     * One trial of the experiment.
+     */
+    @FunctionalInterface
+    public interface Trial {
+        /**
+         * @param rnd generator of the worker, not shared with the other workers
+         * @return true if the trial is a success (e.g. the point is under the curve)
+         */
+        boolean run(SplittableRandom rnd);
+    }
+
+    private ParallelMonteCarlo() {
+    }
+
+    /**
+     * Run the trials on the common ForkJoinPool.
+     *
+     * @param trial       the experiment
+     * @param totalTrials number of trials
+     * @param seed        seed of the root generator
+     * @return number of successes
+     */
+    public static long count(Trial trial, long totalTrials, long seed) {
+        return count(trial, totalTrials, seed, ForkJoinPool.commonPool());
+    }
+
+    public static long count(Trial trial, long totalTrials, long seed, ForkJoinPool pool) {
+        return pool.invoke(new CountTask(trial, totalTrials, new SplittableRandom(seed)));
+    }
+
+    @SuppressWarnings("serial") // never serialized, a ForkJoin task only
+    private static final class CountTask extends RecursiveTask<Long> {
+        private final Trial trial;
+        private final long numTrials;
+        private final SplittableRandom rnd;
+
+        CountTask(Trial trial, long numTrials, SplittableRandom rnd) {
+            this.trial = trial;
+            this.numTrials = numTrials;
+            this.rnd = rnd;
+        }
+
+        @Override
+        protected Long compute() {
+            if (numTrials <= BLOCK_SIZE) {
+                long successes = 0;
+                for (long i = 0; i < numTrials; i++) {
+                    if (trial.run(rnd)) successes++;
+                }
+                return successes;
+            }
+            long half = numTrials / 2;
+            CountTask left = new CountTask(trial, half, rnd.split());
+            CountTask right = new CountTask(trial, numTrials - half, rnd);
+            left.fork();
+            long rightSuccesses = right.compute();
+            return left.join() + rightSuccesses;
+        }
+    }
+}
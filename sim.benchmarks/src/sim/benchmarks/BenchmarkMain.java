@@ -0,0 +1,36 @@
+package sim.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Entry point of benchmarks.jar: the JMH command line, always with the gc profiler, so the
+ * allocation rate per operation (gc.alloc.rate.norm) of every benchmark is reported. The "allocation"
+ * argument instead asserts that the event list hold loop allocates nothing, see
+ * EventListBenchmark.checkAllocation().
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException,
+            ReflectiveOperationException {
+        if (args.length == 1 && args[0].equals("allocation")) {
+            EventListBenchmark.checkAllocation();
+            return;
+        }
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        new Runner(new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
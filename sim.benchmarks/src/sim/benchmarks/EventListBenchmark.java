@@ -0,0 +1,129 @@
+package sim.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sim.kernel.AllocationProbe;
+import sim.kernel.EventList;
+import sim.kernel.EventListType;
+import sim.kernel.SimEvent;
+import sim.kernel.SimRandomGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classic "hold" benchmark of the event list (Jones, CACM 29(4), 1986): with a constant number of
+ * pending events, each operation extracts the imminent event and schedules a new one after a random
+ * increment. The increments are drawn before the measurement, so only the event list is timed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventListBenchmark {
+
+    enum Tag {NONE, HOLD}
+
+    public enum Increment {
+        /* exponential with mean 1 */
+        EXPONENTIAL,
+        /* uniform in [0, 2] */
+        UNIFORM,
+        /* uniform in [0, 0.2] with probability 0.9, in [9, 11] otherwise */
+        BIMODAL
+    }
+
+    private static final int NUM_INCREMENTS = 1 << 16;
+    private static final long ALLOCATION_CHECK_EVENTS = 5_000_000;
+
+    @Param({"binary.heap", "calendar.queue"})
+    public String eventList;
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    @Param({"EXPONENTIAL", "UNIFORM", "BIMODAL"})
+    public Increment increment;
+
+    private EventList<Tag> list;
+    private final double[] increments = new double[NUM_INCREMENTS];
+    private int next;
+
+    @Setup
+    public void setup() {
+        SimRandomGenerator randGen = new SimRandomGenerator(1);
+        for (int i = 0; i < NUM_INCREMENTS; i++) {
+            increments[i] = switch (increment) {
+                case EXPONENTIAL -> randGen.exponentialSample(1.0);
+                case UNIFORM -> randGen.uniformSample(0, 2);
+                case BIMODAL -> randGen.nextDouble() < 0.9 ?
+                        randGen.uniformSample(0, 0.2) :
+                        randGen.uniformSample(9, 11);
+            };
+        }
+
+        list = new EventList<>(0.0, Tag.NONE, EventListType.of(eventList));
+        for (int i = 0; i < size; i++) {
+            list.schedule(Tag.HOLD, nextIncrement());
+        }
+        /* Reach the steady state of the time distribution of the pending events. */
+        for (int i = 0; i < 10 * size; i++) {
+            hold();
+        }
+    }
+
+    private double nextIncrement() {
+        return increments[next++ & (NUM_INCREMENTS - 1)];
+    }
+
+    @Benchmark
+    public double hold() {
+        SimEvent<Tag> ev = list.removeHeadEvent();
+        double time = ev.time;
+        list.schedule(Tag.HOLD, time + nextIncrement());
+        return time;
+    }
+
+    /**
+     * Asserts that the hold loop allocates nothing in steady state, for every event list, size and
+     * increment of the benchmark: after a warm-up of the loop (JIT compilation), the next holds are
+     * run under an AllocationProbe. Outside JMH, "java -jar benchmarks.jar allocation".
+     *
+     * @throws AssertionError at the first configuration whose hold loop allocates
+     */
+    static void checkAllocation() throws ReflectiveOperationException {
+        for (String eventList : EventListBenchmark.class.getField("eventList").getAnnotation(Param.class).value()) {
+            for (String size : EventListBenchmark.class.getField("size").getAnnotation(Param.class).value()) {
+                for (Increment increment : Increment.values()) {
+                    EventListBenchmark benchmark = new EventListBenchmark();
+                    benchmark.eventList = eventList;
+                    benchmark.size = Integer.parseInt(size);
+                    benchmark.increment = increment;
+                    benchmark.setup();
+                    for (long i = 0; i < ALLOCATION_CHECK_EVENTS; i++) {
+                        benchmark.hold();
+                    }
+
+                    AllocationProbe probe = AllocationProbe.start();
+                    for (long i = 0; i < ALLOCATION_CHECK_EVENTS; i++) {
+                        benchmark.hold();
+                    }
+                    long bytes = probe.allocatedBytes();
+                    probe.assertNoAllocation(ALLOCATION_CHECK_EVENTS);
+                    System.out.printf("%-15s %7s %-12s %d bytes allocated for %d events%n",
+                            eventList, size, increment, bytes, ALLOCATION_CHECK_EVENTS);
+                }
+            }
+        }
+    }
+}
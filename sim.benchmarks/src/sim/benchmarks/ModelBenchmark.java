@@ -0,0 +1,79 @@
+package sim.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import sim.kernel.SimModel;
+import sim.kernel.SimRandomGenerator;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Throughput of the whole run of each model with the input parameters of its module: one operation
+ * is one replication (initSimulation and the event loop, without the report), and the "events"
+ * counter gives the events per second.
+ * <p>
+ * The models are loaded from the target/classes directories of their modules, below the directory
+ * of the "sim.root" system property (the current directory by default), so build them first.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelBenchmark {
+
+    @Param({"mm1:MM1", "mmc:MMC", "mm1.seq:MM1Seq", "dump.truck.problem:DumpTruckSimulation",
+            "inventory.system:InventorySystem", "time.shared.computer:TimeSharedComputer",
+            "two.cities:TelephonyOfTwoCities", "two.servers.in.sequence:TwoServers"})
+    public String model;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Events {
+        public long events;
+    }
+
+    private Supplier<SimModel> factory;
+    private SimRandomGenerator randGen;
+    private PrintStream out;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        factory = ModelLoader.load(Path.of(System.getProperty("sim.root", ".")), model);
+        randGen = new SimRandomGenerator(1);
+
+        /* Some models trace their events on the standard output, keep it out of the results. */
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(out);
+    }
+
+    @Benchmark
+    public double[] runSimulation(Events counters) {
+        SimModel simModel = factory.get();
+        simModel.replicate(randGen.substream());
+        counters.events += simModel.numEvents();
+        return simModel.measures();
+    }
+}
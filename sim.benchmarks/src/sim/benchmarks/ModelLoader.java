@@ -0,0 +1,57 @@
+package sim.benchmarks;
+
+import sim.kernel.SimModel;
+import sim.kernel.SimProperties;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+/**
+ * Load a model from the classes of its module. All models keep their classes in the default package
+ * (SimParams, SimStats, EventTag, ...), so each model gets its own class loader, on top of the
+ * class loader of the kernel.
+ */
+final class ModelLoader {
+
+    private ModelLoader() {
+    }
+
+    /**
+     * @param root  root directory of the project
+     * @param model module directory and model class, e.g. "mmc:MMC"
+     * @return factory of models sharing the input parameters of the module (src/input.params.txt)
+     */
+    static Supplier<SimModel> load(Path root, String model) {
+        String[] parts = model.split(":");
+        if (parts.length != 2) throw new IllegalArgumentException("Expected module:ModelClass, got " + model);
+        Path module = root.resolve(parts[0]);
+        try {
+            URL classes = module.resolve("target/classes").toUri().toURL();
+            ClassLoader loader = new URLClassLoader(new URL[]{classes}, ModelLoader.class.getClassLoader());
+
+            Class<? extends SimModel> modelClass = loader.loadClass(parts[1]).asSubclass(SimModel.class);
+            Class<? extends SimProperties> paramsClass = loader.loadClass("SimParams").asSubclass(SimProperties.class);
+            Object params = paramsClass.getMethod("loadFrom", String.class)
+                    .invoke(null, module.resolve("src/input.params.txt").toString());
+            Constructor<? extends SimModel> constructor = modelClass.getConstructor(paramsClass);
+
+            return () -> {
+                try {
+                    return constructor.newInstance(params);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Cannot create " + model, e);
+                }
+            };
+        } catch (MalformedURLException | ClassNotFoundException | NoSuchMethodException
+                 | IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot load " + model + " from " + module, e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalArgumentException("Cannot read the input parameters of " + model, e.getCause());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package sim.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sim.kernel.AliasTable;
+import sim.kernel.SimRandomGenerator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * Cost of one random variate: the inverse transform the models used before against the ziggurat
+ * and alias method samplers of SimRandomGenerator, for each random generator algorithm.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VariateBenchmark {
+
+    @Param({"L64X128MixRandom", "Xoshiro256PlusPlus", "Random"})
+    public String algorithm;
+
+    private RandomGenerator rand;
+    private SimRandomGenerator randGen;
+
+    /* demand sizes of the inventory model: 1, 2, 3 or 4 with probabilities 1/6, 1/3, 1/3, 1/6 */
+    private final AliasTable demandSizes = new AliasTable(1, 2, 2, 1);
+
+    @Setup
+    public void setup() {
+        rand = RandomGeneratorFactory.of(algorithm).create(1);
+        randGen = new SimRandomGenerator(algorithm, 1);
+    }
+
+    @Benchmark
+    public double uniform() {
+        return randGen.uniformSample(0.5, 1.0);
+    }
+
+    @Benchmark
+    public double inverseTransformExponential() {
+        return -2.0 * Math.log(rand.nextDouble());
+    }
+
+    @Benchmark
+    public double zigguratExponential() {
+        return randGen.exponentialSample(2.0);
+    }
+
+    @Benchmark
+    public double boxMullerNormal() {
+        double u1 = rand.nextDouble();
+        double u2 = rand.nextDouble();
+        return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+    }
+
+    @Benchmark
+    public double zigguratNormal() {
+        return randGen.normalSample(0.0, 1.0);
+    }
+
+    @Benchmark
+    public int switchDiscrete() {
+        switch (rand.nextInt(6)) {
+            case 0: return 1;
+            case 1:
+            case 2: return 2;
+            case 3:
+            case 4: return 3;
+            default: return 4;
+        }
+    }
+
+    @Benchmark
+    public int aliasDiscrete() {
+        return 1 + randGen.discreteSample(demandSizes);
+    }
+}
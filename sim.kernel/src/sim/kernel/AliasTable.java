@@ -0,0 +1,84 @@
+package sim.kernel;
+
+/**
+ * Discrete distribution over the outcomes 0..n-1, sampled in O(1) time with one uniform random
+ * number by the alias method (A. J. Walker, 1977; table built in O(n) time by M. D. Vose's method,
+ * "A Linear Algorithm for Generating Random Numbers with a Given Distribution", IEEE TSE 17(9), 1991).
+ * Is immutable, can be shared between threads.
+ */
+public final class AliasTable {
+
+    /* probability of keeping the column outcome rather than its alias */
+    private final double[] keep;
+    private final int[] alias;
+
+    /**
+     * @param weights non-negative weights of the outcomes, normalized to probabilities
+     */
+    public AliasTable(double... weights) {
+        int n = weights.length;
+        if (n == 0) throw new IllegalArgumentException("No outcomes");
+        double sum = 0;
+        for (double w : weights) {
+            if (!(w >= 0) || Double.isInfinite(w)) throw new IllegalArgumentException("Invalid weight: " + w);
+            sum += w;
+        }
+        if (sum <= 0) throw new IllegalArgumentException("Weights sum to zero");
+
+        keep = new double[n];
+        alias = new int[n];
+
+        /* Scale the probabilities to average 1, then pair each small column with a large one. */
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int numSmall = 0;
+        int numLarge = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / sum;
+            if (scaled[i] < 1) small[numSmall++] = i;
+            else large[numLarge++] = i;
+        }
+        while (numSmall > 0 && numLarge > 0) {
+            int s = small[--numSmall];
+            int l = large[--numLarge];
+            keep[s] = scaled[s];
+            alias[s] = l;
+            scaled[l] = (scaled[l] + scaled[s]) - 1;
+            if (scaled[l] < 1) small[numSmall++] = l;
+            else large[numLarge++] = l;
+        }
+        /* The columns left are full, up to rounding errors. */
+        while (numLarge > 0) {
+            int l = large[--numLarge];
+            keep[l] = 1;
+            alias[l] = l;
+        }
+        while (numSmall > 0) {
+            int s = small[--numSmall];
+            keep[s] = 1;
+            alias[s] = s;
+        }
+    }
+
+    /**
+     * @return number of outcomes
+     */
+    public int size() {
+        return keep.length;
+    }
+
+    /**
+     * Map a uniform random number to an outcome: its integer part (scaled by n) selects a column,
+     * its fractional part decides between the column outcome and its alias.
+     *
+     * @param u uniform random value in range [0, 1[
+     * @return outcome in range [0, size()[
+     */
+    public int sample(double u) {
+        double x = u * keep.length;
+        int column = (int) x;
+        if (column == keep.length) column--; // u rounded up to 1
+        return x - column < keep[column] ? column : alias[column];
+    }
+}
@@ -0,0 +1,64 @@
+package sim.kernel;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the bytes allocated by the current thread, used to assert that the steady-state
+ * event loop allocates nothing per event.
+ * <pre>
+ *     AllocationProbe probe = AllocationProbe.start();
+ *     ... run n events ...
+ *     probe.assertNoAllocation(n);
+ * </pre>
+ */
+public final class AllocationProbe {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /* the measure itself may allocate a few bytes once, whatever the number of events */
+    private static final long ALLOWANCE_BYTES = 1024;
+
+    private final long startBytes;
+
+    private AllocationProbe() {
+        this.startBytes = THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * @return true if the JVM measures per-thread allocations
+     */
+    public static boolean isSupported() {
+        return THREADS.isThreadAllocatedMemorySupported() && THREADS.isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * Start measuring the allocations of the current thread.
+     */
+    public static AllocationProbe start() {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Thread allocated memory is not supported by this JVM");
+        }
+        return new AllocationProbe();
+    }
+
+    /**
+     * @return bytes allocated by the current thread since start()
+     */
+    public long allocatedBytes() {
+        return THREADS.getCurrentThreadAllocatedBytes() - startBytes;
+    }
+
+    /**
+     * @param numEvents number of events handled since start()
+     * @throws AssertionError if the events allocated memory, more than a fixed allowance of 1 KB for
+     * the whole run however many events
+     */
+    public void assertNoAllocation(long numEvents) {
+        long bytes = allocatedBytes();
+        if (bytes > ALLOWANCE_BYTES) {
+            throw new AssertionError(String.format(
+                    "%d bytes allocated for %d events (%4.2f bytes/event)", bytes, numEvents,
+                    (double) bytes / Math.max(1, numEvents)));
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package sim.kernel;
+
+import java.util.Arrays;
+
+/**
+ * Confidence interval of a steady-state mean from one long run, by non-overlapping batch means.
+ * <p>
+ * Streaming: the observations are added to the current batch, and only the means of the complete
+ * batches are stored. When maxBatches batches are complete, adjacent batches are merged two by
+ * two and the batch size doubles, so the memory stays O(maxBatches) whatever the run length.
+ * Observations are either discrete (delays, weight 1 each) or time-weighted (number in queue,
+ * weighted by the time the value was kept, an interval overlapping two batches is split).
+ * <p>
+ * The interval is computed on batches made larger, by further merges, until the lag-1
+ * autocorrelation of their means is at most MAX_LAG1, keeping at least MIN_BATCHES batches.
+ * IS NOT thread safe.
+ */
+public class BatchMeans {
+    public static final int DEFAULT_MAX_BATCHES = 64;
+    public static final int MIN_BATCHES = 10;
+    public static final double MAX_LAG1 = 0.2;
+
+    private final double[] means;
+    private int numBatches;
+    private double batchSize; // weight of one batch: number of observations or simulation time
+
+    /* current, incomplete, batch */
+    private double batchSum;
+    private double batchWeight;
+
+    private double totalSum;
+    private double totalWeight;
+
+    public BatchMeans() {
+        this(DEFAULT_MAX_BATCHES, 1.0);
+    }
+
+    /**
+     * @param maxBatches       number of complete batches that triggers a merge, even, at least 2 * MIN_BATCHES
+     * @param initialBatchSize weight of the first batches
+     */
+    public BatchMeans(int maxBatches, double initialBatchSize) {
+        if (maxBatches < 2 * MIN_BATCHES || maxBatches % 2 != 0)
+            throw new IllegalArgumentException("maxBatches must be even and at least " + 2 * MIN_BATCHES);
+        if (initialBatchSize <= 0) throw new IllegalArgumentException("initialBatchSize must be positive");
+        this.means = new double[maxBatches];
+        this.batchSize = initialBatchSize;
+    }
+
+    /**
+     * Record one discrete observation, of weight 1.
+     *
+     * @param value observed value
+     */
+    public void record(double value) {
+        accumulate(value, 1.0);
+    }
+
+    /**
+     * Record a value kept for a duration, as in TimeStat.accumulate().
+     *
+     * @param value    value of the quantity
+     * @param duration time the quantity kept the value
+     */
+    public void accumulate(double value, double duration) {
+        totalSum += value * duration;
+        totalWeight += duration;
+        while (duration > 0) {
+            double room = batchSize - batchWeight;
+            if (duration < room) {
+                batchSum += value * duration;
+                batchWeight += duration;
+                return;
+            }
+            batchSum += value * room;
+            duration -= room;
+            closeBatch();
+        }
+    }
+
+    private void closeBatch() {
+        means[numBatches++] = batchSum / batchSize;
+        batchSum = 0;
+        batchWeight = 0;
+        if (numBatches == means.length) {
+            numBatches = merge(means, numBatches);
+            batchSize *= 2;
+        }
+    }
+
+    /**
+     * Replace the batch means by the means of adjacent pairs, in place.
+     *
+     * @return new number of batches
+     */
+    private static int merge(double[] batchMeans, int numBatches) {
+        int merged = numBatches / 2;
+        for (int i = 0; i < merged; i++) {
+            batchMeans[i] = (batchMeans[2 * i] + batchMeans[2 * i + 1]) / 2;
+        }
+        return merged;
+    }
+
+    /**
+     * @return mean of all the observations, the incomplete batch included
+     */
+    public double mean() {
+        return totalWeight > 0 ? totalSum / totalWeight : 0;
+    }
+
+    /**
+     * @return number of complete batches stored
+     */
+    public int numBatches() {
+        return numBatches;
+    }
+
+    /**
+     * @return weight of the stored batches
+     */
+    public double batchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return means of the batches the interval is computed on: the stored batches merged until
+     * their lag-1 autocorrelation is at most MAX_LAG1 or merging would leave less than MIN_BATCHES
+     */
+    public double[] batchMeans() {
+        double[] result = Arrays.copyOf(means, numBatches);
+        int k = numBatches;
+        while (k >= 2 * MIN_BATCHES && lag1Autocorrelation(result, k) > MAX_LAG1) {
+            k = merge(result, k);
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    /**
+     * @return lag-1 autocorrelation of the first k values
+     */
+    static double lag1Autocorrelation(double[] values, int k) {
+        double mean = 0;
+        for (int i = 0; i < k; i++) {
+            mean += values[i];
+        }
+        mean /= k;
+        double variance = 0;
+        double covariance = 0;
+        for (int i = 0; i < k; i++) {
+            double d = values[i] - mean;
+            variance += d * d;
+            if (i > 0) covariance += d * (values[i - 1] - mean);
+        }
+        return variance > 0 ? covariance / variance : 0;
+    }
+
+    /**
+     * @param level confidence level, e.g. 0.95
+     * @return half-width of the t confidence interval of the mean, NaN with less than two batches
+     */
+    public double halfWidth(double level) {
+        double[] batchMeans = batchMeans();
+        int k = batchMeans.length;
+        if (k < 2) return Double.NaN;
+        SampleStat stat = new SampleStat();
+        for (double batchMean : batchMeans) {
+            stat.record(batchMean);
+        }
+        double t = Quantiles.studentT(1 - (1 - level) / 2, k - 1);
+        return t * stat.stdDev() / Math.sqrt(k);
+    }
+
+    /**
+     * @param level confidence level, e.g. 0.95
+     * @return mean, half-width and batches of the interval, for the reports
+     */
+    public String format(double level) {
+        double[] batchMeans = batchMeans();
+        return String.format("%4.3f +/- %4.3f (%.0f%% batch means, %d batches, lag-1 autocorrelation %4.3f)",
+                mean(), halfWidth(level), 100 * level, batchMeans.length,
+                lag1Autocorrelation(batchMeans, batchMeans.length));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BatchMeans{numBatches: %d, batchSize: %4.3f, mean: %4.4f}",
+                numBatches, batchSize, mean());
+    }
+}
@@ -0,0 +1,256 @@
+package sim.kernel;
+
+import java.util.function.Consumer;
+
+/**
+ * Calendar queue (R. Brown, "Calendar Queues: A Fast O(1) Priority Queue Implementation for the
+ * Simulation Event Set Problem", CACM 31(10), 1988).
+ * <p>
+ * Events are hashed by time into a circular array of buckets ("days" of one "year"), each bucket
+ * is a list sorted by time. The number of buckets doubles or halves with the number of events,
+ * and the bucket width is re-estimated from the separation of the imminent events on each resize,
+ * so hold operations take O(1) amortized time.
+ * Items with equal times are extracted in insertion order (FIFO). IS NOT thread safe.
+ *
+ * @param <E> type of the stored events
+ */
+final class CalendarQueue<E> implements EventQueue<E> {
+    private static final int MIN_BUCKETS = 2;
+    private static final int MAX_WIDTH_SAMPLES = 25;
+
+    private static final class Node {
+        double time;
+        long seq;
+        long day; // floor(time / width), the bucket is day & mask
+        Object item;
+        Node next;
+    }
+
+    private Node[] buckets;
+    private int mask;
+    private double width;
+    private int size;
+    private long nextSeq;
+
+    /* day of the last extracted event, no pending event is in an earlier day */
+    private long currentDay;
+
+    /* recycled nodes, so a steady-state hold allocates nothing */
+    private Node freeNodes;
+
+    private final double[] sampleTimes = new double[MAX_WIDTH_SAMPLES];
+
+    CalendarQueue() {
+        this(MIN_BUCKETS, 1.0);
+    }
+
+    CalendarQueue(int numBuckets, double width) {
+        init(Math.max(MIN_BUCKETS, Integer.highestOneBit(numBuckets)), width);
+    }
+
+    private void init(int numBuckets, double bucketWidth) {
+        buckets = new Node[numBuckets];
+        mask = numBuckets - 1;
+        width = bucketWidth;
+        currentDay = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void add(double time, E item) {
+        Node node = freeNodes;
+        if (node == null) {
+            node = new Node();
+        } else {
+            freeNodes = node.next;
+        }
+        node.time = time;
+        node.seq = nextSeq++;
+        node.item = item;
+        insert(node);
+        size++;
+
+        if (size > 2 * buckets.length) resize(buckets.length << 1);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        Node head = head();
+        return head == null ? null : (E) head.item;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        Node head = head();
+        if (head == null) return null;
+
+        /* head() moved currentDay to the bucket of the imminent event, which is first in its bucket */
+        int b = (int) (currentDay & mask);
+        buckets[b] = head.next;
+        size--;
+
+        E result = (E) head.item;
+        head.item = null;
+        head.next = freeNodes;
+        freeNodes = head;
+
+        if (size < buckets.length / 2 && buckets.length > MIN_BUCKETS) resize(buckets.length >>> 1);
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        for (int b = 0; b < buckets.length; b++) {
+            for (Node node = buckets[b]; node != null; node = node.next) {
+                node.item = null;
+            }
+            buckets[b] = null;
+        }
+        size = 0;
+        currentDay = 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super E> action) {
+        for (Node bucket : buckets) {
+            for (Node node = bucket; node != null; node = node.next) {
+                action.accept((E) node.item);
+            }
+        }
+    }
+
+    private long dayOf(double time) {
+        return (long) Math.floor(time / width);
+    }
+
+    private static boolean before(Node a, Node b) {
+        return a.time < b.time || (a.time == b.time && a.seq < b.seq);
+    }
+
+    /**
+     * Insert node in its bucket, keeping the bucket sorted by (time, seq).
+     */
+    private void insert(Node node) {
+        node.day = dayOf(node.time);
+        if (node.day < currentDay) currentDay = node.day; // event scheduled in the past of the calendar
+
+        int b = (int) (node.day & mask);
+        Node cur = buckets[b];
+        if (cur == null || before(node, cur)) {
+            node.next = cur;
+            buckets[b] = node;
+            return;
+        }
+        while (cur.next != null && before(cur.next, node)) {
+            cur = cur.next;
+        }
+        node.next = cur.next;
+        cur.next = node;
+    }
+
+    /**
+     * Locate the imminent event and move currentDay to its day.
+     *
+     * @return the imminent node, still first in its bucket, or null if the queue is empty
+     */
+    private Node head() {
+        if (size == 0) return null;
+
+        /* Scan one year of days starting from the current one. */
+        for (int i = 0; i < buckets.length; i++) {
+            long day = currentDay + i;
+            Node node = buckets[(int) (day & mask)];
+            if (node != null && node.day <= day) {
+                currentDay = day;
+                return node;
+            }
+        }
+
+        /* No event within one year, direct search for the minimum among bucket heads. */
+        Node min = null;
+        for (Node node : buckets) {
+            if (node != null && (min == null || before(node, min))) min = node;
+        }
+        currentDay = min.day;
+        return min;
+    }
+
+    /**
+     * Rebuild the calendar with numBuckets buckets and a bucket width estimated from the
+     * average separation of the imminent events.
+     */
+    private void resize(int numBuckets) {
+        double newWidth = estimateWidth();
+
+        Node all = null;
+        for (int b = 0; b < buckets.length; b++) {
+            Node node = buckets[b];
+            while (node != null) {
+                Node next = node.next;
+                node.next = all;
+                all = node;
+                node = next;
+            }
+        }
+
+        long firstDay = currentDay;
+        double firstTime = firstDay * width;
+        init(numBuckets, newWidth);
+        currentDay = dayOf(firstTime);
+        while (all != null) {
+            Node next = all.next;
+            insert(all);
+            all = next;
+        }
+    }
+
+    /**
+     * Brown's heuristic: three times the average separation of the imminent events,
+     * ignoring separations larger than twice the first average.
+     */
+    private double estimateWidth() {
+        int numSamples = Math.min(size, MAX_WIDTH_SAMPLES);
+        if (numSamples < 2) return width;
+
+        /* Take the imminent events out without triggering a resize, then put them back. */
+        Node samples = null;
+        double[] times = sampleTimes;
+        for (int i = 0; i < numSamples; i++) {
+            Node head = head();
+            buckets[(int) (currentDay & mask)] = head.next;
+            size--;
+            times[i] = head.time;
+            head.next = samples;
+            samples = head;
+        }
+        while (samples != null) {
+            Node next = samples.next;
+            insert(samples);
+            size++;
+            samples = next;
+        }
+
+        double total = times[numSamples - 1] - times[0];
+        double average = total / (numSamples - 1);
+        if (average <= 0) return width;
+
+        double sum = 0;
+        int count = 0;
+        for (int i = 1; i < numSamples; i++) {
+            double separation = times[i] - times[i - 1];
+            if (separation <= 2 * average) {
+                sum += separation;
+                count++;
+            }
+        }
+        double newWidth = 3 * sum / count;
+        return newWidth > 0 ? newWidth : width;
+    }
+}
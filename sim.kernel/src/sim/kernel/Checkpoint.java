@@ -0,0 +1,152 @@
+package sim.kernel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Checkpoints of a long run: the full state of the simulation between two events (clock and
+ * pending events, model state, statistics, position of the random generators) written to a compact
+ * binary file, from which another run resumes exactly where this one was, and ends with the same
+ * results as an uninterrupted run. A run can so be split, forked into what-if branches with other
+ * parameters, or restarted after a crash from its last checkpoint.
+ * <p>
+ * The file is a header (magic number, version, name of the model) followed by the model's own
+ * writeTo() calls, read back in the same order. It is written to a temporary file, forced to the
+ * disk, then renamed, so a crash while writing leaves the previous checkpoint intact. The random
+ * generators of a checkpointed run must be SimRandomGenerator.checkpointable().
+ * <p>
+ * Stateful, a model creates one per run and checks it once per event, between two events:
+ * <pre>
+ *     if (checkpoint.isDue(eventList)) {
+ *         checkpoint.write(this::writeState);
+ *         if (checkpoint.stopsRun()) break;
+ *     }
+ * </pre>
+ */
+public class Checkpoint {
+    private static final int MAGIC = 0x53494D43; // "SIMC"
+    private static final int VERSION = 3;
+
+    /**
+     * Writes the state of a model.
+     */
+    public interface StateWriter {
+        void writeTo(DataOutput out) throws IOException;
+    }
+
+    /**
+     * Reads the state of a model back, in the order it was written.
+     */
+    public interface StateReader {
+        void readFrom(DataInput in) throws IOException;
+    }
+
+    private final Path file;
+    private final String model;
+    private final double interval;
+    private final boolean stopsRun;
+
+    private double nextTime;
+
+    /**
+     * @param file     checkpoint file, replaced by every checkpoint
+     * @param model    name of the model, checked when the file is read
+     * @param interval simulation time between two checkpoints, at its multiples
+     * @param stopsRun true to end the run at the first checkpoint, e.g. to split it
+     */
+    public Checkpoint(Path file, String model, double interval, boolean stopsRun) {
+        if (interval <= 0) throw new IllegalArgumentException("interval must be positive");
+        this.file = file;
+        this.model = model;
+        this.interval = interval;
+        this.stopsRun = stopsRun;
+        this.nextTime = interval;
+    }
+
+    /**
+     * @param eventList event list of the run
+     * @return true if a checkpoint is due, then write() must be called
+     */
+    public boolean isDue(EventList<?> eventList) {
+        if (eventList.getTime() < nextTime) return false;
+        resumeAt(eventList);
+        return true;
+    }
+
+    /**
+     * Skip the checkpoints up to the current time, e.g. of a run restored from a checkpoint.
+     *
+     * @param eventList event list of the run
+     */
+    public void resumeAt(EventList<?> eventList) {
+        nextTime = (Math.floor(eventList.getTime() / interval) + 1) * interval;
+    }
+
+    public boolean stopsRun() {
+        return stopsRun;
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * Write a checkpoint to the file of this run.
+     */
+    public void write(StateWriter state) throws IOException {
+        write(file, model, state);
+    }
+
+    /**
+     * @param file  checkpoint file, replaced
+     * @param model name of the model
+     * @param state writes the state of the model
+     */
+    public static void write(Path file, String model, StateWriter state) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(model);
+            state.writeTo(out);
+            out.flush();
+            /* on the disk before the rename, or a crash could leave a renamed but incomplete file */
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @param file  checkpoint file
+     * @param model name of the model, must be the one of the file
+     * @param state reads the state of the model
+     */
+    public static void read(Path file, String model, StateReader state) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException(file + " is not a checkpoint");
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("unsupported checkpoint version " + version);
+            String writtenModel = in.readUTF();
+            if (!writtenModel.equals(model))
+                throw new IOException(file + " is a checkpoint of " + writtenModel + ", not of " + model);
+            state.readFrom(in);
+            if (in.read() != -1) throw new IOException(file + " has data after the state of " + model);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package sim.kernel;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * FIFO queue of primitive doubles, such as the arrival times of the customers waiting in line.
+ * A circular array doubled when full, so add and remove take O(1) time and, once the queue reached
+ * its high-water mark, allocate nothing. IS NOT thread safe.
+ */
+public class DoubleQueue {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private double[] elements;
+    private int head; // index of the first element
+    private int size;
+    private int maxSize;
+
+    public DoubleQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity number of elements held before the first resize
+     */
+    public DoubleQueue(int initialCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, initialCapacity - 1)) << 1;
+        elements = new double[capacity];
+    }
+
+    /**
+     * Add a value at the tail of the queue.
+     */
+    public void add(double value) {
+        if (size == elements.length) grow();
+        elements[(head + size) & (elements.length - 1)] = value;
+        size++;
+        if (size > maxSize) maxSize = size;
+    }
+
+    /**
+     * Remove the value at the head of the queue.
+     *
+     * @return the removed value
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public double remove() {
+        if (size == 0) throw new NoSuchElementException("Empty queue");
+        double value = elements[head];
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        return value;
+    }
+
+    /**
+     * @return the value at the head of the queue, without removing it
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public double peek() {
+        if (size == 0) throw new NoSuchElementException("Empty queue");
+        return elements[head];
+    }
+
+    /**
+     * @return current number of values in the queue (occupancy)
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return high-water mark, the largest size reached since creation or the last clear
+     */
+    public int maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Restart the high-water mark from the current size, e.g. at the end of a warm-up period.
+     */
+    public void resetMaxSize() {
+        maxSize = size;
+    }
+
+    /**
+     * Remove all values and reset the high-water mark, keeping the capacity.
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+        maxSize = 0;
+    }
+
+    /**
+     * Write the values, head first, and the high-water mark, e.g. to a checkpoint.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        out.writeInt(maxSize);
+        for (int i = 0; i < size; i++) {
+            out.writeDouble(elements[(head + i) & (elements.length - 1)]);
+        }
+    }
+
+    /**
+     * Replace the values and the high-water mark by the ones written by writeTo().
+     */
+    public void readFrom(DataInput in) throws IOException {
+        clear();
+        int n = in.readInt();
+        int writtenMaxSize = in.readInt();
+        for (int i = 0; i < n; i++) {
+            add(in.readDouble());
+        }
+        maxSize = writtenMaxSize;
+    }
+
+    private void grow() {
+        double[] larger = Arrays.copyOf(elements, elements.length << 1);
+        /* Move the wrapped part, [0, head[, after the end of the old array. */
+        System.arraycopy(elements, 0, larger, elements.length, head);
+        elements = larger;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DoubleQueue{size: %d, maxSize: %d}", size, maxSize);
+    }
+}
@@ -0,0 +1,119 @@
+package sim.kernel;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Binary min-heap of events keyed on their primitive double times.
+ * Events with equal times are extracted in insertion order (FIFO), using a sequence number as tie-break.
+ * IS NOT thread safe.
+ *
+ * @param <E> type of the stored events
+ */
+final class EventHeap<E> implements EventQueue<E> {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /* parallel arrays, the heap entry i is (times[i], seqs[i], items[i]) */
+    private double[] times;
+    private long[] seqs;
+    private Object[] items;
+    private int size;
+    private long nextSeq;
+
+    EventHeap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    EventHeap(int initialCapacity) {
+        int capacity = Math.max(2, initialCapacity);
+        times = new double[capacity];
+        seqs = new long[capacity];
+        items = new Object[capacity];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void add(double time, E item) {
+        if (size == items.length) grow();
+        siftUp(size++, time, nextSeq++, item);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        return size == 0 ? null : (E) items[0];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        if (size == 0) return null;
+        E result = (E) items[0];
+        int last = --size;
+        if (last > 0) {
+            siftDown(0, times[last], seqs[last], items[last]);
+        }
+        items[last] = null;
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(items, 0, size, null);
+        size = 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super E> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept((E) items[i]);
+        }
+    }
+
+    private static boolean before(double time1, long seq1, double time2, long seq2) {
+        return time1 < time2 || (time1 == time2 && seq1 < seq2);
+    }
+
+    private void siftUp(int k, double time, long seq, Object item) {
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            if (!before(time, seq, times[parent], seqs[parent])) break;
+            set(k, times[parent], seqs[parent], items[parent]);
+            k = parent;
+        }
+        set(k, time, seq, item);
+    }
+
+    private void siftDown(int k, double time, long seq, Object item) {
+        int half = size >>> 1;
+        while (k < half) {
+            int child = 2 * k + 1;
+            int right = child + 1;
+            if (right < size && before(times[right], seqs[right], times[child], seqs[child])) {
+                child = right;
+            }
+            if (!before(times[child], seqs[child], time, seq)) break;
+            set(k, times[child], seqs[child], items[child]);
+            k = child;
+        }
+        set(k, time, seq, item);
+    }
+
+    private void set(int k, double time, long seq, Object item) {
+        times[k] = time;
+        seqs[k] = seq;
+        items[k] = item;
+    }
+
+    private void grow() {
+        int capacity = items.length << 1;
+        times = Arrays.copyOf(times, capacity);
+        seqs = Arrays.copyOf(seqs, capacity);
+        items = Arrays.copyOf(items, capacity);
+    }
+}
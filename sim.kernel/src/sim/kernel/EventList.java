@@ -0,0 +1,288 @@
+package sim.kernel;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Simulation event list, ordered by the primitive event times. The pending events are kept in
+ * a binary heap or a calendar queue (see EventListType).
+ * Events scheduled at the same time are extracted in the order they were added (FIFO).
+ *
+ * @param <T> enum of the event types of the model
+ */
+public class EventList<T extends Enum<T>> {
+    /* utility event returned when the event list is empty. */
+    private final SimEvent<T> none;
+
+    private final EventQueue<SimEvent<T>> queue;
+
+    /* recycled events, linked by SimEvent.nextFree */
+    private SimEvent<T> freeEvents;
+    /* last event returned by removeHeadEvent, recycled on the next call */
+    private SimEvent<T> currentEvent;
+    private long allocatedEvents;
+    private long numEvents;
+
+    private double time;
+    private double lastEventTime;
+
+    /* trace of the handled events, null when tracing is off */
+    private EventTracer tracer;
+
+    /**
+     * @param initTime initial value of the simulation clock
+     * @param noneTag  event type of the model returned when the event list is empty
+     */
+    public EventList(double initTime, T noneTag) {
+        this(initTime, noneTag, EventListType.BINARY_HEAP);
+    }
+
+    /**
+     * @param initTime initial value of the simulation clock
+     * @param noneTag  event type of the model returned when the event list is empty
+     * @param type     implementation of the pending event set
+     */
+    public EventList(double initTime, T noneTag, EventListType type) {
+        /* Initialize the simulation clock. */
+        this.time = initTime;
+        this.lastEventTime = initTime;
+        this.none = new SimEvent<>(noneTag, initTime);
+        this.queue = type.newQueue();
+    }
+
+    /**
+     * Schedule an event at its time.
+     *
+     * @param ev event to be added to the event list
+     */
+    public void add(SimEvent<T> ev) {
+        queue.add(ev.time, ev);
+    }
+
+    /**
+     * Schedule an event taken from the pool of recycled events.
+     *
+     * @param tag  type of event
+     * @param time time when the event will be triggered
+     * @param data payload attached with the event (optional)
+     */
+    public void schedule(T tag, double time, Object data) {
+        SimEvent<T> ev = takeEvent();
+        ev.set(tag, time, data);
+        queue.add(time, ev);
+    }
+
+    /**
+     * Schedule an event with primitive payloads, taken from the pool of recycled events.
+     *
+     * @param tag        type of event
+     * @param time       time when the event will be triggered
+     * @param longData   payload read back from SimEvent.longData (an amount, an index)
+     * @param doubleData payload read back from SimEvent.doubleData (a time)
+     */
+    public void schedule(T tag, double time, long longData, double doubleData) {
+        SimEvent<T> ev = takeEvent();
+        ev.set(tag, time, longData, doubleData);
+        queue.add(time, ev);
+    }
+
+    /**
+     * Schedule an event with a primitive payload, taken from the pool of recycled events.
+     * Note that an int argument selects this method, not the Object one.
+     *
+     * @param tag      type of event
+     * @param time     time when the event will be triggered
+     * @param longData payload read back from SimEvent.longData (an amount, an index)
+     */
+    public void schedule(T tag, double time, long longData) {
+        schedule(tag, time, longData, 0.0);
+    }
+
+    /**
+     * Schedule an event taken from the pool of recycled events.
+     *
+     * @param tag  type of event
+     * @param time time when the event will be triggered
+     */
+    public void schedule(T tag, double time) {
+        schedule(tag, time, null);
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    public boolean isEmpty() {
+        return queue.size() == 0;
+    }
+
+    /**
+     * Extract and remove the imminent event from event list. Advance the simulation clock to this event.
+     *
+     * @return extracted event, or the NONE event if event list were empty.
+     */
+    public SimEvent<T> removeHeadEvent() {
+        /* Check to see whether the event list is empty. */
+        /* If empty, return NONE event to stop the simulation */
+        if (queue.size() == 0) return none;
+
+        /* The previous event has been handled by the model, so recycle it. */
+        recycle(currentEvent);
+
+        /* The event list is not empty, so advance the simulation clock. */
+        SimEvent<T> ev = queue.poll();
+        numEvents++;
+        lastEventTime = time;
+        time = ev.time;
+        currentEvent = ev;
+        if (tracer != null) tracer.event(ev);
+        return ev;
+    }
+
+    /**
+     * Trace the events extracted from now on.
+     *
+     * @param tracer tracer of the run, null to stop tracing
+     */
+    public void trace(EventTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    private SimEvent<T> takeEvent() {
+        SimEvent<T> ev = freeEvents;
+        if (ev == null) {
+            allocatedEvents++;
+            return new SimEvent<>(null, 0.0);
+        }
+        freeEvents = ev.nextFree;
+        ev.nextFree = null;
+        return ev;
+    }
+
+    private void recycle(SimEvent<T> ev) {
+        if (ev == null) return;
+        ev.data = null;
+        ev.nextFree = freeEvents;
+        freeEvents = ev;
+    }
+
+    /**
+     * @return number of events created by schedule() because the pool was empty,
+     * stays constant once the event loop reached its steady state
+     */
+    public long allocatedEvents() {
+        return allocatedEvents;
+    }
+
+    /**
+     * @return number of events extracted by removeHeadEvent, the NONE event excluded
+     */
+    public long numEvents() {
+        return numEvents;
+    }
+
+    /**
+     * Read the imminent event without extracting it form the event list
+     * @return the head event in the event list, or the NONE event if event list were empty.
+     */
+    public SimEvent<T> readHeadEvent() {
+        if (queue.size() == 0) return none;
+        return queue.peek();
+    }
+
+    public double getTime() {
+        return time;
+    }
+
+    public double getLastEventTime() {
+        return lastEventTime;
+    }
+
+    public double timeSinceLastEvent() {
+        return time - lastEventTime;
+    }
+
+    /**
+     * Remove the pending events of a type, e.g. to reschedule the end of a run restored from a
+     * checkpoint. O(n), the other events keep their order.
+     *
+     * @param tag type of the removed events
+     * @return number of removed events
+     */
+    public int cancel(T tag) {
+        List<SimEvent<T>> pending = new ArrayList<>(queue.size());
+        for (SimEvent<T> ev = queue.poll(); ev != null; ev = queue.poll()) {
+            pending.add(ev);
+        }
+        int result = 0;
+        for (SimEvent<T> ev : pending) {
+            if (ev.tag == tag) {
+                recycle(ev);
+                result++;
+            } else {
+                queue.add(ev.time, ev);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Write the clock and the pending events, in extraction order, e.g. to a checkpoint. The events
+     * must carry primitive payloads only, an event with a data reference cannot be written.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeDouble(time);
+        out.writeDouble(lastEventTime);
+        out.writeLong(numEvents);
+        out.writeInt(queue.size());
+        /* Extract the events to write them in order, then add them back in the same order, which
+           keeps the FIFO order of equal times. */
+        List<SimEvent<T>> pending = new ArrayList<>(queue.size());
+        for (SimEvent<T> ev = queue.poll(); ev != null; ev = queue.poll()) {
+            pending.add(ev);
+        }
+        for (SimEvent<T> ev : pending) {
+            queue.add(ev.time, ev);
+        }
+        for (SimEvent<T> ev : pending) {
+            if (ev.data != null) throw new IOException("cannot write the data of " + ev);
+            out.writeShort(ev.tag.ordinal());
+            out.writeDouble(ev.time);
+            out.writeLong(ev.longData);
+            out.writeDouble(ev.doubleData);
+        }
+    }
+
+    /**
+     * Replace the clock and the pending events by the ones written by writeTo().
+     */
+    public void readFrom(DataInput in) throws IOException {
+        T[] tags = none.tag.getDeclaringClass().getEnumConstants();
+        queue.clear();
+        currentEvent = null;
+        time = in.readDouble();
+        lastEventTime = in.readDouble();
+        numEvents = in.readLong();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            int tag = in.readShort();
+            if (tag < 0 || tag >= tags.length) throw new IOException("unknown event tag " + tag);
+            double eventTime = in.readDouble();
+            schedule(tags[tag], eventTime, in.readLong(), in.readDouble());
+        }
+    }
+
+    @Override
+    public String toString() { // for debugging only
+        StringJoiner joiner = new StringJoiner("\n");
+        joiner.add(String.format("Current Event Time= %4.4f", time));
+        joiner.add(String.format("Last Event Time= %4.4f", lastEventTime));
+        joiner.add(String.format("Number of events= %d", size()));
+        queue.forEach(ev -> joiner.add(ev.toString()));
+        return joiner.toString();
+    }
+}
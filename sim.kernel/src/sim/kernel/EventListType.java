@@ -0,0 +1,43 @@
+package sim.kernel;
+
+/**
+ * Implementations of the pending event set behind the EventList,
+ * selected by the "event.list" key of the input parameters.
+ */
+public enum EventListType {
+    /**
+     * Binary heap, O(log n) hold time.
+     */
+    BINARY_HEAP,
+
+    /**
+     * Calendar queue, O(1) amortized hold time for large event lists.
+     */
+    CALENDAR_QUEUE;
+
+    /**
+     * @return property value of this type, e.g. "calendar.queue"
+     */
+    public String key() {
+        return name().toLowerCase().replace('_', '.');
+    }
+
+    /**
+     * @param key property value, e.g. "binary.heap" or "calendar.queue"
+     */
+    public static EventListType of(String key) {
+        for (EventListType type : values()) {
+            if (type.key().equals(key.trim())) return type;
+        }
+        throw new IllegalArgumentException("Unknown event list type: " + key);
+    }
+
+    <E> EventQueue<E> newQueue() {
+        switch (this) {
+            case CALENDAR_QUEUE:
+                return new CalendarQueue<>();
+            default:
+                return new EventHeap<>();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package sim.kernel;
+
+import java.util.function.Consumer;
+
+/**
+ * Pending event set behind the EventList, ordered by event time.
+ * Items with equal times are extracted in insertion order (FIFO).
+ *
+ * @param <E> type of the stored events
+ */
+interface EventQueue<E> {
+
+    int size();
+
+    /**
+     * Insert an item at the given time, after all the items already inserted at the same time.
+     */
+    void add(double time, E item);
+
+    /**
+     * @return the item with the smallest time, or null if the queue is empty
+     */
+    E peek();
+
+    /**
+     * Extract and remove the item with the smallest time.
+     *
+     * @return extracted item, or null if the queue is empty
+     */
+    E poll();
+
+    void clear();
+
+    /**
+     * Visit all the items, in no particular order (for debugging only).
+     */
+    void forEach(Consumer<? super E> action);
+}
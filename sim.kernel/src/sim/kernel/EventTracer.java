@@ -0,0 +1,294 @@
+package sim.kernel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Binary trace of the events of a run, read back by TraceReader.
+ * <p>
+ * Two ways to write the records, without formatting nor allocation in the event loop:
+ * <ul>
+ * <li>asynchronous (default): the simulation thread puts the records in a single-producer
+ * single-consumer ring buffer of longs, without locks, and a background thread writes them to
+ * the trace file. When the writer lags behind, the simulation thread waits for room, so no record
+ * is lost.</li>
+ * <li>mapped: the simulation thread writes the records straight into MAPPED_REGION_SIZE byte
+ * regions of the file mapped in memory (MappedByteBuffer), the operating system writes them back.
+ * No thread and no copy, the fastest way for very long traces. A mapped region cannot be unmapped
+ * on demand, so the file is not truncated: it keeps the unused end of its last region, after the
+ * number of records of the header.</li>
+ * </ul>
+ * A run without tracing has no tracer at all: the event list only tests its tracer for null.
+ * <p>
+ * File format (big-endian): a header, the magic number MAGIC, the format VERSION, the record size
+ * in bytes, the trace level ordinal, the sampling, the number of records (long, -1 until the tracer
+ * is closed), the number of event tags and their names
+ * (unsigned short length then UTF-8 bytes), then RECORD_SIZE byte records of
+ * <ul>
+ * <li>double time: time of the event,</li>
+ * <li>long longData and double doubleData: payload slots of the event,</li>
+ * <li>int kind: EVENT, or DETAIL for a record of the model,</li>
+ * <li>int code: ordinal of the event tag, or the model's code of a detail record.</li>
+ * </ul>
+ */
+public final class EventTracer implements Closeable {
+    public static final long MAGIC = 0x53494d5452414345L; // "SIMTRACE"
+    public static final int VERSION = 3;
+    public static final int RECORD_SIZE = 32;
+    public static final int EVENT = 0;
+    public static final int DETAIL = 1;
+    public static final int MAPPED_REGION_SIZE = RECORD_SIZE << 21; // 64 MB
+
+    private static final int LONGS_PER_RECORD = 4;
+    private static final long NUM_RECORDS_POSITION = 8 + 4 * 4; // in the header
+
+    private final TraceLevel level;
+    private final int sampling;
+    private long numEvents; // events seen, sampled or not
+
+    private final FileChannel channel;
+    private final long headerSize;
+
+    /* asynchronous mode: ring buffer, records [head, tail[ are waiting for the writer */
+    private final long[] ring;
+    private final int mask; // capacity in records - 1
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private long cachedHead; // producer's copy of head, refreshed when the ring looks full
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile IOException writeError;
+
+    /* mapped mode: current region of the file */
+    private MappedByteBuffer region;
+    private long regionPosition; // position of the region in the file
+    private long numMappedRecords;
+
+    /**
+     * Asynchronous tracer.
+     *
+     * @param file          trace file, replaced if it exists
+     * @param level         EVENTS or DETAIL
+     * @param sampling      one event record every sampling events, 1 for all of them
+     * @param bufferRecords capacity of the ring buffer, a power of two
+     * @param tagNames      names of the event tags, by ordinal
+     */
+    public EventTracer(Path file, TraceLevel level, int sampling, int bufferRecords, String[] tagNames)
+            throws IOException {
+        this(file, level, sampling, bufferRecords, tagNames, false);
+    }
+
+    private EventTracer(Path file, TraceLevel level, int sampling, int bufferRecords, String[] tagNames,
+                        boolean mapped) throws IOException {
+        if (level == TraceLevel.OFF) throw new IllegalArgumentException("no tracer for level OFF");
+        if (sampling < 1) throw new IllegalArgumentException("sampling < 1");
+        if (!mapped && (bufferRecords < 2 || Integer.bitCount(bufferRecords) != 1))
+            throw new IllegalArgumentException("bufferRecords must be a power of two: " + bufferRecords);
+        this.level = level;
+        this.sampling = sampling;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.headerSize = writeHeader(tagNames);
+        if (mapped) {
+            this.ring = null;
+            this.mask = 0;
+            this.writer = null;
+            this.regionPosition = headerSize;
+            this.region = channel.map(FileChannel.MapMode.READ_WRITE, regionPosition, MAPPED_REGION_SIZE);
+        } else {
+            this.ring = new long[bufferRecords * LONGS_PER_RECORD];
+            this.mask = bufferRecords - 1;
+            this.writer = new Thread(this::drain, "event-tracer");
+            this.writer.setDaemon(true);
+            this.writer.start();
+        }
+    }
+
+    /**
+     * Tracer writing through memory-mapped regions of the file, see the class comment.
+     *
+     * @param file     trace file, replaced if it exists
+     * @param level    EVENTS or DETAIL
+     * @param sampling one event record every sampling events, 1 for all of them
+     * @param tagNames names of the event tags, by ordinal
+     */
+    public static EventTracer mapped(Path file, TraceLevel level, int sampling, String[] tagNames)
+            throws IOException {
+        return new EventTracer(file, level, sampling, 0, tagNames, true);
+    }
+
+    /**
+     * @param tagType enum of the event tags of the model
+     * @return names of the tags by ordinal
+     */
+    public static String[] tagNames(Class<? extends Enum<?>> tagType) {
+        Enum<?>[] tags = tagType.getEnumConstants();
+        String[] result = new String[tags.length];
+        for (int i = 0; i < tags.length; i++) {
+            result[i] = tags[i].name();
+        }
+        return result;
+    }
+
+    /**
+     * @return size of the header in bytes
+     */
+    private long writeHeader(String[] tagNames) throws IOException {
+        int size = 8 + 5 * 4 + 8;
+        byte[][] names = new byte[tagNames.length][];
+        for (int i = 0; i < tagNames.length; i++) {
+            names[i] = tagNames[i].getBytes(StandardCharsets.UTF_8);
+            size += 2 + names[i].length;
+        }
+        ByteBuffer header = ByteBuffer.allocate(size);
+        header.putLong(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).putInt(level.ordinal()).putInt(sampling)
+                .putLong(-1).putInt(tagNames.length);
+        for (byte[] name : names) {
+            header.putShort((short) name.length).put(name);
+        }
+        header.flip();
+        while (header.hasRemaining()) channel.write(header);
+        return size;
+    }
+
+    /**
+     * @return true if the records of the level are traced
+     */
+    public boolean traces(TraceLevel recordLevel) {
+        return recordLevel.compareTo(level) <= 0;
+    }
+
+    /**
+     * Trace a handled event, or one in sampling of them.
+     */
+    public void event(SimEvent<?> ev) {
+        if (numEvents++ % sampling != 0) return;
+        put(ev.time, ev.longData, ev.doubleData, EVENT, ev.tag.ordinal());
+    }
+
+    /**
+     * Trace a record of the model, at level DETAIL only.
+     *
+     * @param code meaning of the record, chosen by the model
+     */
+    public void detail(int code, double time, long longData, double doubleData) {
+        if (level != TraceLevel.DETAIL) return;
+        put(time, longData, doubleData, DETAIL, code);
+    }
+
+    private void put(double time, long longData, double doubleData, int kind, int code) {
+        if (region != null) {
+            putMapped(time, longData, doubleData, kind, code);
+            return;
+        }
+        long t = tail.get();
+        if (t - cachedHead > mask) {
+            /* looks full, wait until the writer frees a record */
+            while (t - (cachedHead = head.get()) > mask) {
+                if (writeError != null) throw new UncheckedIOException(writeError);
+                Thread.onSpinWait();
+            }
+        }
+        int i = (int) (t & mask) * LONGS_PER_RECORD;
+        ring[i] = Double.doubleToRawLongBits(time);
+        ring[i + 1] = longData;
+        ring[i + 2] = Double.doubleToRawLongBits(doubleData);
+        ring[i + 3] = ((long) kind << 32) | (code & 0xffffffffL);
+        tail.lazySet(t + 1); // publishes the record to the writer
+    }
+
+    private void putMapped(double time, long longData, double doubleData, int kind, int code) {
+        if (!region.hasRemaining()) {
+            try {
+                regionPosition += MAPPED_REGION_SIZE;
+                region = channel.map(FileChannel.MapMode.READ_WRITE, regionPosition, MAPPED_REGION_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        region.putDouble(time).putLong(longData).putDouble(doubleData).putInt(kind).putInt(code);
+        numMappedRecords++;
+    }
+
+    /**
+     * Writer thread: copy the published records to the file until the tracer is closed.
+     */
+    private void drain() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(Math.min(mask + 1, 4096) * RECORD_SIZE);
+        try {
+            while (true) {
+                boolean last = closed; // read before tail, so the records published before close are written
+                long h = head.get();
+                long t = tail.get();
+                if (h == t) {
+                    if (last) return;
+                    LockSupport.parkNanos(100_000);
+                    continue;
+                }
+                while (h < t) {
+                    int i = (int) (h & mask) * LONGS_PER_RECORD;
+                    buffer.putLong(ring[i]).putLong(ring[i + 1]).putLong(ring[i + 2]).putLong(ring[i + 3]);
+                    h++;
+                    if (!buffer.hasRemaining()) {
+                        write(buffer);
+                        head.lazySet(h);
+                    }
+                }
+                write(buffer);
+                head.lazySet(h);
+            }
+        } catch (IOException e) {
+            writeError = e;
+        }
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * @return number of records put in the trace
+     */
+    public long numRecords() {
+        return writer == null ? numMappedRecords : tail.get();
+    }
+
+    /**
+     * Write the remaining records and their number, and close the file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (writer == null) {
+            /* The regions stay mapped until they are garbage collected, the file keeps its size. */
+            region = null;
+            writeNumRecords(numMappedRecords);
+            channel.close();
+            return;
+        }
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writeError == null) writeNumRecords(tail.get());
+        channel.close();
+        if (writeError != null) throw writeError;
+    }
+
+    private void writeNumRecords(long numRecords) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8).putLong(numRecords).flip();
+        while (buffer.hasRemaining()) channel.write(buffer, NUM_RECORDS_POSITION + buffer.position());
+    }
+}
@@ -0,0 +1,100 @@
+package sim.kernel;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.random.RandomGenerator;
+
+/**
+ * The L64X128MixRandom algorithm of java.util.random, with its state readable and writable so a
+ * generator can be checkpointed and restored in O(1) (the JDK class keeps its state private).
+ * Bit for bit the JDK generator: same seeding, same split(), same nextLong(), and the other variates
+ * come from the default methods of RandomGenerator, as they do for the JDK class.
+ * <p>
+ * LXM generator (G. L. Steele and S. Vigna, 2021): a 64-bit LCG and a xoroshiro128 generator,
+ * their sum mixed by Doug Lea's mixing function.
+ */
+final class L64X128Mix implements RandomGenerator {
+    private static final long M = 0xd1342543de82ef95L; // multiplier of the LCG
+    private static final long GOLDEN_RATIO_64 = 0x9e3779b97f4a7c15L;
+    private static final long SILVER_RATIO_64 = 0x6A09E667F3BCC909L;
+
+    private long a; // additive constant of the LCG, odd
+    private long s; // state of the LCG
+    private long x0, x1; // state of the xoroshiro128 generator, not both zero
+
+    /**
+     * Same generator as RandomGeneratorFactory.of("L64X128MixRandom").create(seed).
+     */
+    L64X128Mix(long seed) {
+        seed ^= SILVER_RATIO_64;
+        set(mixMurmur64(seed), 1, mixStafford13(seed), mixStafford13(seed + GOLDEN_RATIO_64));
+    }
+
+    private L64X128Mix(long a, long s, long x0, long x1) {
+        set(a, s, x0, x1);
+    }
+
+    private void set(long a, long s, long x0, long x1) {
+        this.a = a | 1;
+        this.s = s;
+        this.x0 = x0;
+        this.x1 = x1;
+        if ((x0 | x1) == 0) {
+            long v = s;
+            this.x0 = mixStafford13(v += GOLDEN_RATIO_64);
+            this.x1 = mixStafford13(v + GOLDEN_RATIO_64);
+        }
+    }
+
+    /**
+     * @return new generator drawn from this one, as split() of the JDK generator. Advances this generator.
+     */
+    L64X128Mix split() {
+        long brine = nextLong();
+        long newS = nextLong();
+        long newX0 = nextLong();
+        long newX1 = nextLong();
+        return new L64X128Mix(brine << 1, newS, newX0, newX1);
+    }
+
+    @Override
+    public long nextLong() {
+        long result = mixLea64(s + x0);
+        s = M * s + a;
+        long q0 = x0;
+        long q1 = x1 ^ q0;
+        x0 = Long.rotateLeft(q0, 24) ^ q1 ^ (q1 << 16);
+        x1 = Long.rotateLeft(q1, 37);
+        return result;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(a);
+        out.writeLong(s);
+        out.writeLong(x0);
+        out.writeLong(x1);
+    }
+
+    void readFrom(DataInput in) throws IOException {
+        set(in.readLong(), in.readLong(), in.readLong(), in.readLong());
+    }
+
+    private static long mixMurmur64(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    private static long mixStafford13(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long mixLea64(long z) {
+        z = (z ^ (z >>> 32)) * 0xdaba0b6eb09322e3L;
+        z = (z ^ (z >>> 32)) * 0xdaba0b6eb09322e3L;
+        return z ^ (z >>> 32);
+    }
+}
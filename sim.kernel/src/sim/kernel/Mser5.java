@@ -0,0 +1,144 @@
+package sim.kernel;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Truncation point of the initial transient of an output series, by the MSER-5 rule
+ * (K. P. White, "An effective truncation heuristic for bias reduction in simulation output",
+ * Simulation 69(6), 1997).
+ * <p>
+ * The observations are grouped in batches of 5. The truncation point is the number of batches d,
+ * at most half of them, that minimizes the squared standard error of the mean of the remaining
+ * batch means, sum((Z[j] - mean(Z[d..k[))^2) / (k - d)^2. Only the batch means are stored.
+ */
+public class Mser5 {
+    public static final int BATCH_SIZE = 5;
+
+    private double[] batchMeans = new double[64];
+    private double[] batchEndTimes = new double[64];
+    private int numBatches;
+
+    private double batchSum;
+    private int batchCount;
+
+    /**
+     * Record the next observation of the series.
+     *
+     * @param value observed value
+     * @param time  simulation time of the observation
+     */
+    public void record(double value, double time) {
+        batchSum += value;
+        if (++batchCount < BATCH_SIZE) return;
+
+        if (numBatches == batchMeans.length) {
+            batchMeans = Arrays.copyOf(batchMeans, numBatches << 1);
+            batchEndTimes = Arrays.copyOf(batchEndTimes, numBatches << 1);
+        }
+        batchMeans[numBatches] = batchSum / BATCH_SIZE;
+        batchEndTimes[numBatches] = time;
+        numBatches++;
+        batchSum = 0;
+        batchCount = 0;
+    }
+
+    /**
+     * @return number of complete batches, the observations of an incomplete last batch are ignored
+     */
+    public int numBatches() {
+        return numBatches;
+    }
+
+    /**
+     * @return number of batches to delete, in range [0, numBatches() / 2]
+     */
+    public int truncationBatch() {
+        int k = numBatches;
+        if (k < 2) return 0;
+
+        /* Sums of the batch means and of their squares from batch d to the last one. */
+        double sum = 0;
+        double sumSquares = 0;
+        int best = k - 1;
+        double bestStatistic = Double.POSITIVE_INFINITY;
+        for (int d = k - 1; d >= 0; d--) {
+            sum += batchMeans[d];
+            sumSquares += batchMeans[d] * batchMeans[d];
+            if (d > k / 2) continue;
+            int n = k - d;
+            double sse = Math.max(0, sumSquares - sum * sum / n);
+            double statistic = sse / ((double) n * n);
+            if (statistic <= bestStatistic) { // ties go to the shortest truncation
+                bestStatistic = statistic;
+                best = d;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return number of observations to delete
+     */
+    public long truncationPoint() {
+        return (long) truncationBatch() * BATCH_SIZE;
+    }
+
+    /**
+     * @return simulation time of the last deleted observation, 0 if none is deleted
+     */
+    public double truncationTime() {
+        int d = truncationBatch();
+        return d == 0 ? 0 : batchEndTimes[d - 1];
+    }
+
+    /**
+     * @return mean of the batch means after the truncation point
+     */
+    public double truncatedMean() {
+        int d = truncationBatch();
+        double sum = 0;
+        for (int j = d; j < numBatches; j++) {
+            sum += batchMeans[j];
+        }
+        return numBatches > d ? sum / (numBatches - d) : 0;
+    }
+
+    /**
+     * Write the series, e.g. to a checkpoint.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(numBatches);
+        for (int j = 0; j < numBatches; j++) {
+            out.writeDouble(batchMeans[j]);
+            out.writeDouble(batchEndTimes[j]);
+        }
+        out.writeDouble(batchSum);
+        out.writeInt(batchCount);
+    }
+
+    /**
+     * @return series written by writeTo()
+     */
+    public static Mser5 readFrom(DataInput in) throws IOException {
+        Mser5 result = new Mser5();
+        int numBatches = in.readInt();
+        result.batchMeans = new double[Math.max(64, numBatches)];
+        result.batchEndTimes = new double[result.batchMeans.length];
+        for (int j = 0; j < numBatches; j++) {
+            result.batchMeans[j] = in.readDouble();
+            result.batchEndTimes[j] = in.readDouble();
+        }
+        result.numBatches = numBatches;
+        result.batchSum = in.readDouble();
+        result.batchCount = in.readInt();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Mser5{numBatches: %d, truncationBatch: %d}", numBatches, truncationBatch());
+    }
+}
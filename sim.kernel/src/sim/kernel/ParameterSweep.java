@@ -0,0 +1,300 @@
+package sim.kernel;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Run a model on the scenarios of a design over some of its input parameters, and write one CSV
+ * row of output measures per scenario.
+ * <p>
+ * The factors are the "sweep.KEY" keys of the parameters, KEY being any key of the model:
+ * <ul>
+ * <li>sweep.num.servers = 1, 2, 4 (a list of levels),</li>
+ * <li>sweep.num.servers = 1..8 (every integer of an integer range),</li>
+ * <li>sweep.mean.service.time = 0.5..0.9 (a real range, sweep.points equally spaced levels).</li>
+ * </ul>
+ * "sweep.design" is "cartesian" (default, all the combinations of levels) or "lhs" (Latin
+ * hypercube of sweep.samples scenarios, each factor range or list cut into sweep.samples strata,
+ * each stratum used once). Each scenario runs the model's "replications" (on one thread, with the
+ * same "replications.seed", so scenarios use common random numbers), and the scenarios run on a
+ * pool of sweep.parallelism threads. Rows are written, in completion order, as soon as a scenario
+ * ends, and only a few scenarios are in flight at a time, so the design can be larger than memory.
+ *
+ * @param <P> type of the model parameters
+ */
+public class ParameterSweep<P extends SimProperties> {
+    public static final String PREFIX = "sweep.";
+
+    private static final String DESIGN = "sweep.design";
+    private static final String POINTS = "sweep.points";
+    private static final String SAMPLES = "sweep.samples";
+    private static final String SEED = "sweep.seed";
+    private static final String PARALLELISM = "sweep.parallelism";
+    private static final String OUT_FILE = "sweep.out.file";
+    private static final List<String> SETTINGS = List.of(DESIGN, POINTS, SAMPLES, SEED, PARALLELISM, OUT_FILE);
+
+    private final P params;
+    private final List<Factor> factors = new ArrayList<>();
+    private final boolean latinHypercube;
+    private final int numScenarios;
+    private final int[][] strata; // [factor][scenario], Latin hypercube only
+    private final double[][] offsets; // [factor][scenario], position in the stratum, Latin hypercube only
+
+    /**
+     * @param params parameters with "sweep." keys, loaded by SimProperties.loadFrom()
+     */
+    public ParameterSweep(P params) {
+        this.params = params;
+        for (String name : new TreeSet<>(params.stringPropertyNames())) {
+            if (name.startsWith(PREFIX) && !SETTINGS.contains(name)) {
+                factors.add(Factor.parse(name.substring(PREFIX.length()), params.getProperty(name)));
+            }
+        }
+        if (factors.isEmpty()) throw new IllegalArgumentException("no sweep.KEY factor");
+
+        String design = params.getProperty(DESIGN, "cartesian");
+        int points = Integer.parseInt(params.getProperty(POINTS, "5"));
+        switch (design) {
+            case "cartesian" -> {
+                latinHypercube = false;
+                long product = 1;
+                for (Factor factor : factors) {
+                    factor.setLevels(points);
+                    product *= factor.levels.length;
+                }
+                if (product > Integer.MAX_VALUE) throw new IllegalArgumentException("too many scenarios " + product);
+                numScenarios = (int) product;
+                strata = null;
+                offsets = null;
+            }
+            case "lhs" -> {
+                latinHypercube = true;
+                numScenarios = Integer.parseInt(params.getProperty(SAMPLES, "10"));
+                SimRandomGenerator randGen = params.newRandomGenerator(Long.parseLong(params.getProperty(SEED, "1")));
+                strata = new int[factors.size()][];
+                offsets = new double[factors.size()][numScenarios];
+                for (int f = 0; f < factors.size(); f++) {
+                    strata[f] = permutation(numScenarios, randGen);
+                    for (int i = 0; i < numScenarios; i++) {
+                        offsets[f][i] = randGen.nextDouble();
+                    }
+                }
+            }
+            default -> throw new IllegalArgumentException("unknown " + DESIGN + " " + design);
+        }
+    }
+
+    /**
+     * @return true if the parameters have at least one "sweep.KEY" factor
+     */
+    public static boolean isDefined(SimProperties params) {
+        for (String name : params.stringPropertyNames()) {
+            if (name.startsWith(PREFIX) && !SETTINGS.contains(name)) return true;
+        }
+        return false;
+    }
+
+    private static int[] permutation(int n, SimRandomGenerator randGen) {
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = randGen.nextInt(i + 1);
+            int tmp = result[i];
+            result[i] = result[j];
+            result[j] = tmp;
+        }
+        return result;
+    }
+
+    public int numScenarios() {
+        return numScenarios;
+    }
+
+    /**
+     * @param index index of the scenario, in range [0, numScenarios()[
+     * @return values of the factors in the scenario, by key
+     */
+    public Map<String, String> scenario(int index) {
+        String[] values = new String[factors.size()];
+        int rest = index;
+        for (int f = factors.size() - 1; f >= 0; f--) { // the last factor varies fastest
+            Factor factor = factors.get(f);
+            if (latinHypercube) {
+                values[f] = factor.value((strata[f][index] + offsets[f][index]) / numScenarios);
+            } else {
+                values[f] = factor.levels[rest % factor.levels.length];
+                rest /= factor.levels.length;
+            }
+        }
+        Map<String, String> result = new LinkedHashMap<>();
+        for (int f = 0; f < factors.size(); f++) {
+            result.put(factors.get(f).key, values[f]);
+        }
+        return result;
+    }
+
+    /**
+     * Run all scenarios and write their rows to the "sweep.out.file" file (sweep.csv by default).
+     *
+     * @param modelFactory creates a model for the parameters of a scenario
+     */
+    public void run(Function<? super P, ? extends SimModel> modelFactory) throws IOException {
+        String outFile = params.getProperty(OUT_FILE, "sweep.csv");
+        try (Writer out = new BufferedWriter(new FileWriter(outFile))) {
+            run(modelFactory, out);
+        }
+        System.out.printf("%d scenarios written to %s%n", numScenarios, outFile);
+    }
+
+    /**
+     * Run all scenarios and write a header row then one row per scenario, flushed as soon as the
+     * scenario ends.
+     *
+     * @param modelFactory creates a model for the parameters of a scenario
+     * @param out          destination of the CSV rows
+     */
+    public void run(Function<? super P, ? extends SimModel> modelFactory, Writer out) throws IOException {
+        boolean withHalfWidths = params.replications() > 1;
+        String[] measureNames = modelFactory.apply(params).measureNames();
+        StringJoiner header = new StringJoiner(",");
+        header.add("scenario");
+        for (Factor factor : factors) {
+            header.add(factor.key);
+        }
+        for (String name : measureNames) {
+            header.add(name);
+            if (withHalfWidths) header.add(name + ".half.width");
+        }
+        out.write(header + "\n");
+        out.flush();
+
+        int parallelism = Integer.parseInt(params.getProperty(PARALLELISM,
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        CompletionService<String> completion = new ExecutorCompletionService<>(executor);
+        int submitted = 0;
+        try {
+            for (int done = 0; done < numScenarios; done++) {
+                /* Keep at most two scenarios per thread in flight. */
+                while (submitted < numScenarios && submitted - done < 2 * parallelism) {
+                    int index = submitted++;
+                    completion.submit(() -> runScenario(index, modelFactory, withHalfWidths));
+                }
+                out.write(completion.take().get());
+                out.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("sweep interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("scenario failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String runScenario(int index, Function<? super P, ? extends SimModel> modelFactory,
+                               boolean withHalfWidths) {
+        Map<String, String> values = scenario(index);
+        P scenarioParams = params.with(values);
+        ReplicationReport report = new ReplicationRunner(scenarioParams.replications(),
+                scenarioParams.newRandomGenerator(scenarioParams.replicationsSeed()), 1,
+                scenarioParams.replicationsAntithetic())
+                .run(() -> modelFactory.apply(scenarioParams));
+
+        StringJoiner row = new StringJoiner(",", "", "\n");
+        row.add(String.valueOf(index));
+        values.values().forEach(row::add);
+        for (int m = 0; m < report.measureNames().length; m++) {
+            row.add(String.valueOf(report.measure(m).mean()));
+            if (withHalfWidths) row.add(String.valueOf(report.halfWidth(m, 0.95)));
+        }
+        return row.toString();
+    }
+
+    /**
+     * One swept key: a list of levels, an integer range or a real range.
+     */
+    private static final class Factor {
+        final String key;
+        final String[] list; // null for a range
+        final double low;
+        final double high;
+        final boolean integer;
+        private static final MathContext SIGNIFICANT_DIGITS = new MathContext(12);
+
+        String[] levels; // levels of a cartesian design
+
+        private Factor(String key, String[] list, double low, double high, boolean integer) {
+            this.key = key;
+            this.list = list;
+            this.low = low;
+            this.high = high;
+            this.integer = integer;
+        }
+
+        static Factor parse(String key, String spec) {
+            String[] range = spec.trim().split("\\s*\\.\\.\\s*");
+            if (range.length == 2) {
+                boolean integer = isInteger(range[0]) && isInteger(range[1]);
+                double low = Double.parseDouble(range[0]);
+                double high = Double.parseDouble(range[1]);
+                if (high < low) throw new IllegalArgumentException("empty range for " + key + ": " + spec);
+                return new Factor(key, null, low, high, integer);
+            }
+            return new Factor(key, spec.trim().split("[,\\s]+"), 0, 0, false);
+        }
+
+        private static boolean isInteger(String value) {
+            return value.matches("[+-]?\\d+");
+        }
+
+        void setLevels(int points) {
+            if (list != null) {
+                levels = list;
+            } else if (integer) {
+                levels = new String[(int) (high - low) + 1];
+                for (int i = 0; i < levels.length; i++) {
+                    levels[i] = String.valueOf((long) low + i);
+                }
+            } else {
+                if (points < 2) throw new IllegalArgumentException(POINTS + " must be at least 2");
+                levels = new String[points];
+                for (int i = 0; i < points; i++) {
+                    levels[i] = format(low + i * (high - low) / (points - 1));
+                }
+            }
+        }
+
+        /**
+         * @param quantile position in the factor, in range [0, 1[
+         */
+        String value(double quantile) {
+            if (list != null) return list[(int) (quantile * list.length)];
+            if (integer) return String.valueOf((long) low + (long) (quantile * (high - low + 1)));
+            return format(low + quantile * (high - low));
+        }
+
+        private static String format(double value) {
+            return BigDecimal.valueOf(value).round(SIGNIFICANT_DIGITS).stripTrailingZeros().toPlainString();
+        }
+    }
+}
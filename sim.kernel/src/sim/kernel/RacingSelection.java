@@ -0,0 +1,219 @@
+package sim.kernel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Select the candidate system (e.g. a policy) with the smallest mean of an output measure, by
+ * racing: the candidates are replicated in stages, and after each stage the candidates clearly
+ * worse than the current best are dropped, so the replications are spent on the close contenders.
+ * <p>
+ * Replication r of every candidate uses a generator created from the same seed r (common random
+ * numbers), and a candidate is compared with the best one on the paired differences of their
+ * replications: it is dropped when the lower bound of the t confidence interval of the mean
+ * difference is positive, at level 1 - (1 - level) / (survivors - 1) (Bonferroni). The stages
+ * double the number of replications, from initialReplications up to maxReplications. The race ends
+ * when one candidate is left, at maxReplications, or when every survivor is within the
+ * indifference zone of the best one (upper bound of the difference below it).
+ */
+public class RacingSelection {
+
+    private final int initialReplications;
+    private final int maxReplications;
+    private final double level;
+    private final double indifferenceZone;
+    private final int parallelism;
+    private final SimProperties params;
+
+    private double[][] results; // [candidate][replication]
+    private int[] numReplications;
+    private boolean[] survivor;
+    private int best;
+
+    /**
+     * @param params              parameters of the replications generators ("random.generator",
+     *                            "replications.seed")
+     * @param initialReplications replications of the first stage, at least 2
+     * @param maxReplications     replications of a candidate that is never dropped
+     * @param level               confidence level of the comparisons with the best candidate
+     * @param indifferenceZone    difference of means not worth telling apart, 0 to race until one is left
+     * @param parallelism         number of replications run at the same time
+     */
+    public RacingSelection(SimProperties params, int initialReplications, int maxReplications,
+                           double level, double indifferenceZone, int parallelism) {
+        if (initialReplications < 2) throw new IllegalArgumentException("initialReplications < 2");
+        if (maxReplications < initialReplications)
+            throw new IllegalArgumentException("maxReplications < initialReplications");
+        this.params = params;
+        this.initialReplications = initialReplications;
+        this.maxReplications = maxReplications;
+        this.level = level;
+        this.indifferenceZone = indifferenceZone;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Race the candidates.
+     *
+     * @param candidates factories of the candidate models, ready to replicate
+     * @param measure    index of the output measure to minimize
+     * @return index of the best candidate
+     */
+    public int run(List<? extends Supplier<? extends SimModel>> candidates, int measure) {
+        int numCandidates = candidates.size();
+        results = new double[numCandidates][maxReplications];
+        numReplications = new int[numCandidates];
+        survivor = new boolean[numCandidates];
+        Arrays.fill(survivor, true);
+
+        /* Seeds of the common random numbers, replication r of every candidate uses seeds[r]. */
+        SimRandomGenerator seedGenerator = params.newRandomGenerator(params.replicationsSeed());
+        long[] seeds = new long[maxReplications];
+        for (int r = 0; r < maxReplications; r++) {
+            seeds[r] = seedGenerator.nextLong();
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            int stageReplications = initialReplications;
+            while (true) {
+                replicate(candidates, measure, stageReplications, seeds, pool);
+                int numSurvivors = screen(stageReplications);
+                if (numSurvivors == 1 || stageReplications == maxReplications
+                        || (indifferenceZone > 0 && allIndifferent(stageReplications))) {
+                    return best;
+                }
+                stageReplications = Math.min(2 * stageReplications, maxReplications);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Bring every survivor to n replications.
+     */
+    private void replicate(List<? extends Supplier<? extends SimModel>> candidates, int measure, int n,
+                           long[] seeds, ForkJoinPool pool) {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int c = 0; c < candidates.size(); c++) {
+            if (!survivor[c]) continue;
+            Supplier<? extends SimModel> candidate = candidates.get(c);
+            double[] candidateResults = results[c];
+            for (int r = numReplications[c]; r < n; r++) {
+                long seed = seeds[r];
+                int replication = r;
+                tasks.add(() -> {
+                    SimModel model = candidate.get();
+                    model.replicate(params.newRandomGenerator(seed));
+                    candidateResults[replication] = model.measures()[measure];
+                    return null;
+                });
+            }
+            numReplications[c] = n;
+        }
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("race interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("replication failed", e.getCause());
+        }
+    }
+
+    /**
+     * Drop the survivors significantly worse than the best one.
+     *
+     * @return number of survivors
+     */
+    private int screen(int n) {
+        int numSurvivors = 0;
+        best = -1;
+        for (int c = 0; c < survivor.length; c++) {
+            if (!survivor[c]) continue;
+            numSurvivors++;
+            if (best < 0 || mean(c) < mean(best)) best = c;
+        }
+        if (numSurvivors == 1) return 1;
+
+        double t = Quantiles.studentT(1 - (1 - level) / (numSurvivors - 1), n - 1);
+        for (int c = 0; c < survivor.length; c++) {
+            if (!survivor[c] || c == best) continue;
+            SampleStat difference = difference(c, best, n);
+            if (difference.mean() - t * difference.stdDev() / Math.sqrt(n) > 0) {
+                survivor[c] = false;
+                numSurvivors--;
+            }
+        }
+        return numSurvivors;
+    }
+
+    private boolean allIndifferent(int n) {
+        int numSurvivors = numSurvivors();
+        double t = Quantiles.studentT(1 - (1 - level) / Math.max(1, numSurvivors - 1), n - 1);
+        for (int c = 0; c < survivor.length; c++) {
+            if (!survivor[c] || c == best) continue;
+            SampleStat difference = difference(c, best, n);
+            if (difference.mean() + t * difference.stdDev() / Math.sqrt(n) >= indifferenceZone) return false;
+        }
+        return true;
+    }
+
+    private SampleStat difference(int c, int other, int n) {
+        SampleStat result = new SampleStat();
+        for (int r = 0; r < n; r++) {
+            result.record(results[c][r] - results[other][r]);
+        }
+        return result;
+    }
+
+    public boolean isSurvivor(int candidate) {
+        return survivor[candidate];
+    }
+
+    public int numSurvivors() {
+        int result = 0;
+        for (boolean s : survivor) {
+            if (s) result++;
+        }
+        return result;
+    }
+
+    /**
+     * @return mean of the measure over the replications of the candidate
+     */
+    public double mean(int candidate) {
+        double sum = 0;
+        for (int r = 0; r < numReplications[candidate]; r++) {
+            sum += results[candidate][r];
+        }
+        return sum / numReplications[candidate];
+    }
+
+    /**
+     * @return number of replications run for the candidate before it was dropped or the race ended
+     */
+    public int numReplications(int candidate) {
+        return numReplications[candidate];
+    }
+
+    /**
+     * @return number of replications of all candidates, to compare with candidates * maxReplications
+     */
+    public long totalReplications() {
+        long result = 0;
+        for (int n : numReplications) {
+            result += n;
+        }
+        return result;
+    }
+}
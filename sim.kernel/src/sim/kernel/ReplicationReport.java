@@ -0,0 +1,102 @@
+package sim.kernel;
+
+import java.util.StringJoiner;
+
+/**
+ * Output measures of independent replications, with point estimates and confidence intervals
+ * of their means.
+ */
+public class ReplicationReport {
+
+    private final String[] names;
+    private final double[][] results; // [replication][measure]
+    private final SampleStat[] stats;
+
+    /**
+     * @param names   names of the output measures
+     * @param results output measures of each replication, in the order of names
+     */
+    public ReplicationReport(String[] names, double[][] results) {
+        this.names = names.clone();
+        this.results = results;
+        this.stats = new SampleStat[names.length];
+        for (int m = 0; m < names.length; m++) {
+            stats[m] = new SampleStat();
+        }
+        for (double[] replication : results) {
+            if (replication.length != names.length)
+                throw new IllegalArgumentException("expected " + names.length + " measures");
+            for (int m = 0; m < names.length; m++) {
+                stats[m].record(replication[m]);
+            }
+        }
+    }
+
+    public int numReplications() {
+        return results.length;
+    }
+
+    public String[] measureNames() {
+        return names.clone();
+    }
+
+    /**
+     * @return index of the measure in measureNames()
+     */
+    public int indexOf(String name) {
+        for (int m = 0; m < names.length; m++) {
+            if (names[m].equals(name)) return m;
+        }
+        throw new IllegalArgumentException("Unknown measure: " + name);
+    }
+
+    /**
+     * @return statistic of the measure across replications
+     */
+    public SampleStat measure(int m) {
+        return stats[m];
+    }
+
+    public SampleStat measure(String name) {
+        return stats[indexOf(name)];
+    }
+
+    /**
+     * @return value of the measure in one replication
+     */
+    public double result(int replication, int m) {
+        return results[replication][m];
+    }
+
+    /**
+     * Half-width of the t confidence interval of the measure mean, or NaN with one replication.
+     *
+     * @param level confidence level, 0.95 for a 95% confidence interval
+     */
+    public double halfWidth(int m, double level) {
+        long n = stats[m].count();
+        if (n < 2) return Double.NaN;
+        double t = Quantiles.studentT(1 - (1 - level) / 2, n - 1);
+        return t * stats[m].stdDev() / Math.sqrt(n);
+    }
+
+    /**
+     * @param level confidence level of the intervals
+     * @return table of the measures means, confidence intervals half-widths and standard deviations
+     */
+    public String format(double level) {
+        StringJoiner joiner = new StringJoiner("\n");
+        joiner.add(String.format("Replications = %d, confidence level = %.2f", numReplications(), level));
+        joiner.add(String.format("%-30s %14s %14s %14s", "measure", "mean", "half-width", "std. dev."));
+        for (int m = 0; m < names.length; m++) {
+            joiner.add(String.format("%-30s %14.4f %14.4f %14.4f",
+                    names[m], stats[m].mean(), halfWidth(m, level), stats[m].stdDev()));
+        }
+        return joiner.toString();
+    }
+
+    @Override
+    public String toString() {
+        return format(0.95);
+    }
+}
@@ -0,0 +1,123 @@
+package sim.kernel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Run independent replications of a simulation model in parallel, one model instance and one
+ * random stream per replication, and aggregate their output measures (Law, chapter 9).
+ * <p>
+ * The stream of replication i is the i-th stream of a generator seeded with the base seed (see
+ * SimRandomGenerator.streams()), so the results do not depend on the number of threads or on the
+ * order the replications end.
+ * <p>
+ * In antithetic mode the replications run in pairs: a stream gives a generator and its antithetic
+ * twin (see SimRandomGenerator.antitheticPair()), and the pair, whose outputs are negatively
+ * correlated, counts as one independent observation, the average of its two replications.
+ */
+public class ReplicationRunner {
+
+    private final int numReplications;
+    private final SimRandomGenerator baseGenerator;
+    private final int parallelism;
+    private final boolean antithetic;
+
+    /**
+     * @param numReplications number of independent replications
+     * @param baseGenerator   generator of the replications streams
+     * @param parallelism     number of replications run at the same time
+     */
+    public ReplicationRunner(int numReplications, SimRandomGenerator baseGenerator, int parallelism) {
+        this(numReplications, baseGenerator, parallelism, false);
+    }
+
+    /**
+     * @param numReplications number of replications, even in antithetic mode
+     * @param baseGenerator   generator of the replications streams
+     * @param parallelism     number of replications run at the same time
+     * @param antithetic      true to run numReplications / 2 antithetic pairs
+     */
+    public ReplicationRunner(int numReplications, SimRandomGenerator baseGenerator, int parallelism,
+                             boolean antithetic) {
+        if (numReplications < 1) throw new IllegalArgumentException("numReplications < 1");
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism < 1");
+        if (antithetic && numReplications % 2 != 0)
+            throw new IllegalArgumentException("antithetic replications must be even: " + numReplications);
+        this.numReplications = numReplications;
+        this.baseGenerator = baseGenerator;
+        this.parallelism = parallelism;
+        this.antithetic = antithetic;
+    }
+
+    /**
+     * Read the "replications", "replications.seed", "replications.parallelism",
+     * "replications.antithetic" and "random.generator" keys.
+     */
+    public ReplicationRunner(SimProperties params) {
+        this(params.replications(), params.newRandomGenerator(params.replicationsSeed()),
+                params.replicationsParallelism(), params.replicationsAntithetic());
+    }
+
+    /**
+     * Run the replications, each one on a new model from the factory. The streams are taken from
+     * the base generator, so calling run again runs new replications, independent of these ones.
+     *
+     * @param factory creates a model ready to replicate, sharing the same input parameters
+     * @return output measures of all replications, of the pairs averages in antithetic mode
+     */
+    public ReplicationReport run(Supplier<? extends SimModel> factory) {
+        int numObservations = antithetic ? numReplications / 2 : numReplications;
+        /* Created up front by this thread, each stream is then used by one replication only. */
+        SimRandomGenerator[] streams = baseGenerator.streams(numObservations);
+        List<Callable<double[]>> replications = new ArrayList<>(numReplications);
+        for (SimRandomGenerator stream : streams) {
+            if (antithetic) {
+                SimRandomGenerator[] pair = stream.antitheticPair();
+                replications.add(() -> replicate(factory, pair[0]));
+                replications.add(() -> replicate(factory, pair[1]));
+            } else {
+                replications.add(() -> replicate(factory, stream));
+            }
+        }
+
+        double[][] results = new double[numObservations][];
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Future<double[]>> futures = pool.invokeAll(replications);
+            for (int i = 0; i < numObservations; i++) {
+                if (antithetic) {
+                    results[i] = average(futures.get(2 * i).get(), futures.get(2 * i + 1).get());
+                    continue;
+                }
+                results[i] = futures.get(i).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("replications interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("replication failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return new ReplicationReport(factory.get().measureNames(), results);
+    }
+
+    private static double[] replicate(Supplier<? extends SimModel> factory, SimRandomGenerator stream) {
+        SimModel model = factory.get();
+        model.replicate(stream);
+        return model.measures();
+    }
+
+    private static double[] average(double[] a, double[] b) {
+        double[] result = new double[a.length];
+        for (int m = 0; m < a.length; m++) {
+            result[m] = (a[m] + b[m]) / 2;
+        }
+        return result;
+    }
+}
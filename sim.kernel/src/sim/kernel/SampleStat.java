@@ -0,0 +1,110 @@
+package sim.kernel;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Statistic on discrete-time observations, such as the delays of customers in queue
+ * (sampst in Law's simlib).
+ */
+public class SampleStat {
+    private long count;
+    private double sum;
+    private double mean;
+    private double sumSquaredDeviations; // Welford's running sum of squared deviations
+    private double min;
+    private double max;
+
+    public SampleStat() {
+        reset();
+    }
+
+    /**
+     * Record one observation.
+     *
+     * @param value observed value
+     */
+    public void record(double value) {
+        count++;
+        sum += value;
+        double delta = value - mean;
+        mean += delta / count;
+        sumSquaredDeviations += delta * (value - mean);
+        if (value < min) min = value;
+        if (value > max) max = value;
+    }
+
+    /**
+     * Discard all observations recorded so far.
+     */
+    public void reset() {
+        count = 0;
+        sum = 0;
+        mean = 0;
+        sumSquaredDeviations = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double sum() {
+        return sum;
+    }
+
+    public double mean() {
+        return mean;
+    }
+
+    /**
+     * @return unbiased sample variance, or 0 with less than two observations
+     */
+    public double variance() {
+        return count > 1 ? sumSquaredDeviations / (count - 1) : 0;
+    }
+
+    public double stdDev() {
+        return Math.sqrt(variance());
+    }
+
+    public double min() {
+        return min;
+    }
+
+    public double max() {
+        return max;
+    }
+
+    /**
+     * Write the accumulators, e.g. to a checkpoint.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeDouble(sum);
+        out.writeDouble(mean);
+        out.writeDouble(sumSquaredDeviations);
+        out.writeDouble(min);
+        out.writeDouble(max);
+    }
+
+    /**
+     * Replace the accumulators by the ones written by writeTo().
+     */
+    public void readFrom(DataInput in) throws IOException {
+        count = in.readLong();
+        sum = in.readDouble();
+        mean = in.readDouble();
+        sumSquaredDeviations = in.readDouble();
+        min = in.readDouble();
+        max = in.readDouble();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SampleStat{count: %d, mean: %4.4f, stdDev: %4.4f}",
+                count, mean, stdDev());
+    }
+}
@@ -0,0 +1,89 @@
+package sim.kernel;
+
+/**
+ * Precision-driven end of a run: the run stops at the first checkpoint where the batch-means
+ * confidence interval of every key estimate has a half-width of at most a fraction of its mean
+ * (relative precision, A. M. Law, Simulation Modeling & Analysis, section 9.5.3), or after a
+ * maximum number of events. Checkpoints are every checkEvents events, so the cost of the intervals
+ * is not paid on every event:
+ * <pre>
+ *     while (!(stop.checkpoint(eventList) &amp;&amp; stop.shouldStop(stats.delaysBatches, ...))) {
+ * </pre>
+ * Stateful, a model creates one per run.
+ */
+public class SequentialStop {
+    private final double relativeHalfWidth;
+    private final double level;
+    private final long checkEvents;
+    private final long maxEvents;
+
+    private long nextCheck;
+    private boolean maxEventsReached;
+    private boolean targetMet;
+
+    /**
+     * @param relativeHalfWidth target half-width, as a fraction of the mean
+     * @param level             confidence level of the intervals
+     * @param checkEvents       number of events between two checkpoints
+     * @param maxEvents         number of events after which the run stops even if the target is not met
+     */
+    public SequentialStop(double relativeHalfWidth, double level, long checkEvents, long maxEvents) {
+        if (relativeHalfWidth <= 0) throw new IllegalArgumentException("relativeHalfWidth must be positive");
+        if (checkEvents <= 0) throw new IllegalArgumentException("checkEvents must be positive");
+        this.relativeHalfWidth = relativeHalfWidth;
+        this.level = level;
+        this.checkEvents = checkEvents;
+        this.maxEvents = maxEvents;
+        this.nextCheck = Math.min(checkEvents, maxEvents);
+    }
+
+    /**
+     * @param eventList event list of the run
+     * @return true if a checkpoint is due, then shouldStop() must be called
+     */
+    public boolean checkpoint(EventList<?> eventList) {
+        long numEvents = eventList.numEvents();
+        if (numEvents < nextCheck) return false;
+        nextCheck = Math.min(numEvents + checkEvents, maxEvents);
+        maxEventsReached = numEvents >= maxEvents;
+        return true;
+    }
+
+    /**
+     * @param estimates key estimates of the run
+     * @return true if all estimates are precise enough, or the maximum number of events is reached
+     */
+    public boolean shouldStop(BatchMeans... estimates) {
+        for (BatchMeans estimate : estimates) {
+            if (!isPrecise(estimate)) return maxEventsReached;
+        }
+        targetMet = true;
+        return true;
+    }
+
+    /**
+     * @return true if the interval of the estimate, on at least BatchMeans.MIN_BATCHES batches,
+     * meets the relative precision
+     */
+    public boolean isPrecise(BatchMeans estimate) {
+        if (estimate.numBatches() < BatchMeans.MIN_BATCHES) return false;
+        return estimate.halfWidth(level) <= relativeHalfWidth * Math.abs(estimate.mean());
+    }
+
+    /**
+     * @return true if the run stopped because the precision target was met
+     */
+    public boolean targetMet() {
+        return targetMet;
+    }
+
+    public double relativeHalfWidth() {
+        return relativeHalfWidth;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SequentialStop{relativeHalfWidth: %4.3f, level: %4.3f, targetMet: %b}",
+                relativeHalfWidth, level, targetMet);
+    }
+}
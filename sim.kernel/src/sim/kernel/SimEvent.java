@@ -0,0 +1,66 @@
+package sim.kernel;
+
+/**
+ * Simulation event, ordered by its time in the event list.
+ * The event list breaks ties between equal times by insertion order.
+ * <p>
+ * Events scheduled with EventList.schedule() are pooled: an event returned by
+ * EventList.removeHeadEvent() is recycled on the next call, so models must not keep
+ * references to events after handling them. The fields are set by the event list only.
+ * <p>
+ * Besides the optional data reference, an event carries two primitive payload slots, longData and
+ * doubleData, so models can attach amounts, indices and times without boxing or casting.
+ *
+ * @param <T> enum of the event types of the model
+ */
+public class SimEvent<T extends Enum<T>> {
+
+    public T tag;
+    public double time;
+    public Object data;
+    public long longData;
+    public double doubleData;
+
+    /* next free event in the pool of the event list */
+    SimEvent<T> nextFree;
+
+    /**
+     * SimEvent constructor
+     * @param tag type of event
+     * @param time time when the event will be triggered
+     * @param data payload attached with the event (optional)
+     */
+    public SimEvent(T tag, double time, Object data) {
+        set(tag, time, data);
+    }
+
+    /**
+     * SimEvent constructor
+     * @param tag type of event
+     * @param time time when the event will be triggered
+     */
+    public SimEvent(T tag, double time) {
+        this(tag, time, null);
+    }
+
+    void set(T tag, double time, Object data) {
+        this.tag = tag;
+        this.time = time;
+        this.data = data;
+        this.longData = 0;
+        this.doubleData = 0;
+    }
+
+    void set(T tag, double time, long longData, double doubleData) {
+        this.tag = tag;
+        this.time = time;
+        this.data = null;
+        this.longData = longData;
+        this.doubleData = doubleData;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Event{type: %s, time: %4.3f}", tag, time);
+    }
+}
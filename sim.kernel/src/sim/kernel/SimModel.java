@@ -0,0 +1,31 @@
+package sim.kernel;
+
+/**
+ * A simulation model that can be run as independent replications by the ReplicationRunner.
+ * Each replication runs on its own model instance, so implementations only share their
+ * (read-only) input parameters between replications.
+ */
+public interface SimModel {
+
+    /**
+     * Initialize the model state and run the simulation to its end, without writing a report.
+     *
+     * @param randGen random generator of this replication, independent of the other replications
+     */
+    void replicate(SimRandomGenerator randGen);
+
+    /**
+     * @return names of the output measures, in the order of measures()
+     */
+    String[] measureNames();
+
+    /**
+     * @return output measures of the last replication
+     */
+    double[] measures();
+
+    /**
+     * @return number of events of the last replication
+     */
+    long numEvents();
+}
@@ -0,0 +1,218 @@
+package sim.kernel;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+/**
+ * Base of the models input parameters, read from a "properties" file format.
+ */
+public abstract class SimProperties extends Properties {
+
+    /* creates the parameters of the same model, set by loadFrom() */
+    private Supplier<? extends SimProperties> factory;
+
+    /**
+     * Parse the loaded properties into the model parameters.
+     */
+    protected abstract void init();
+
+    /**
+     * @return implementation of the event list, "event.list" key: binary.heap (default) or calendar.queue
+     */
+    public EventListType eventListType() {
+        return EventListType.of(getProperty("event.list", EventListType.BINARY_HEAP.key()));
+    }
+
+    /**
+     * @return name of the random generator algorithm, "random.generator" key, L64X128MixRandom by
+     * default (see java.util.random.RandomGeneratorFactory, "Random" for the java.util.Random stream)
+     */
+    public String randomGenerator() {
+        return getProperty("random.generator", SimRandomGenerator.DEFAULT_ALGORITHM);
+    }
+
+    /**
+     * @param seed seed of the generator
+     * @return random generator of the "random.generator" algorithm, checkpointable if the run writes
+     * or restores checkpoints ("checkpoint.interval" or "restore.file" key)
+     */
+    public SimRandomGenerator newRandomGenerator(long seed) {
+        if (getProperty("checkpoint.interval") != null || restoreFile() != null) {
+            return SimRandomGenerator.checkpointable(randomGenerator(), seed);
+        }
+        return new SimRandomGenerator(randomGenerator(), seed);
+    }
+
+    /**
+     * @return number of independent replications, "replications" key, 1 (a single run) by default
+     */
+    public int replications() {
+        return Integer.parseInt(getProperty("replications", "1"));
+    }
+
+    /**
+     * @return seed of the generator of the replications seeds, "replications.seed" key
+     */
+    public long replicationsSeed() {
+        return Long.parseLong(getProperty("replications.seed", "1"));
+    }
+
+    /**
+     * @return number of replications run at the same time, "replications.parallelism" key,
+     * the number of available processors by default
+     */
+    public int replicationsParallelism() {
+        String value = getProperty("replications.parallelism");
+        return value == null ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(value);
+    }
+
+    /**
+     * @return true to run the replications as antithetic pairs, "replications.antithetic" key
+     */
+    public boolean replicationsAntithetic() {
+        return Boolean.parseBoolean(getProperty("replications.antithetic", "false"));
+    }
+
+    /**
+     * @param numSeries number of output series the model records in a warm-up detected by MSER-5
+     * @return warm-up period of a run: detected by MSER-5 on the run's own output series with the
+     * "warmup.mser5" key, otherwise the "warmup.time" key (simulation time) and "warmup.events" key
+     * (number of events), no warm-up by default
+     */
+    public WarmUp warmUp(int numSeries) {
+        if (warmUpMser5()) return WarmUp.mser5(numSeries);
+        return new WarmUp(Double.parseDouble(getProperty("warmup.time", "0")),
+                Long.parseLong(getProperty("warmup.events", "0")));
+    }
+
+    /**
+     * @return true to detect the end of the warm-up period by MSER-5, "warmup.mser5" key
+     */
+    public boolean warmUpMser5() {
+        return Boolean.parseBoolean(getProperty("warmup.mser5", "false"));
+    }
+
+    /**
+     * @return true to report batch-means confidence intervals of a single run, "batch.means" key
+     */
+    public boolean batchMeans() {
+        return Boolean.parseBoolean(getProperty("batch.means", "false"));
+    }
+
+    /**
+     * @return precision-driven end of a run, replacing the model's fixed horizon, or null if the
+     * "precision.relative.half.width" key is missing. Optional keys: "precision.level" (0.95),
+     * "precision.check.events" (10000) and "precision.max.events" (100000000)
+     */
+    public SequentialStop sequentialStop() {
+        String target = getProperty("precision.relative.half.width");
+        if (target == null) return null;
+        return new SequentialStop(Double.parseDouble(target),
+                Double.parseDouble(getProperty("precision.level", "0.95")),
+                Long.parseLong(getProperty("precision.check.events", "10000")),
+                Long.parseLong(getProperty("precision.max.events", "100000000")));
+    }
+
+    /**
+     * @param tagType enum of the model's event tags, named in the trace header
+     * @return tracer of a run, or null with "trace.level" off (default). Other keys: "trace.file"
+     * (trace.bin), "trace.sampling" (1, every event), "trace.mode" (async or mapped, see
+     * EventTracer) and "trace.buffer.records" (65536, async mode)
+     */
+    public EventTracer eventTracer(Class<? extends Enum<?>> tagType) throws IOException {
+        TraceLevel level = TraceLevel.of(getProperty("trace.level", "off"));
+        if (level == TraceLevel.OFF) return null;
+        Path file = Path.of(getProperty("trace.file", "trace.bin"));
+        int sampling = Integer.parseInt(getProperty("trace.sampling", "1"));
+        String mode = getProperty("trace.mode", "async");
+        return switch (mode) {
+            case "async" -> new EventTracer(file, level, sampling,
+                    Integer.parseInt(getProperty("trace.buffer.records", "65536")), EventTracer.tagNames(tagType));
+            case "mapped" -> EventTracer.mapped(file, level, sampling, EventTracer.tagNames(tagType));
+            default -> throw new IllegalArgumentException("unknown trace.mode " + mode);
+        };
+    }
+
+    /**
+     * @param model name of the model, written in the checkpoints
+     * @return checkpoints of a run, or null if the "checkpoint.interval" key (simulation time between
+     * two checkpoints) is missing. Other keys: "checkpoint.file" (checkpoint.bin) and
+     * "checkpoint.stop" (false, true to end the run at the first checkpoint)
+     */
+    public Checkpoint checkpoint(String model) {
+        String interval = getProperty("checkpoint.interval");
+        if (interval == null) return null;
+        return new Checkpoint(Path.of(getProperty("checkpoint.file", "checkpoint.bin")), model,
+                Double.parseDouble(interval), Boolean.parseBoolean(getProperty("checkpoint.stop", "false")));
+    }
+
+    /**
+     * @return checkpoint file a single run resumes from, "restore.file" key, null to start a new run
+     */
+    public Path restoreFile() {
+        String file = getProperty("restore.file");
+        return file == null ? null : Path.of(file);
+    }
+
+    /**
+     * Copy of these parameters with some values replaced, e.g. one scenario of a ParameterSweep.
+     *
+     * @param values replaced or added values, by key
+     * @param <P>    type of these parameters
+     * @return new parameters of the same type, parsed again
+     */
+    @SuppressWarnings("unchecked")
+    public <P extends SimProperties> P with(Map<String, String> values) {
+        if (factory == null) throw new IllegalStateException("parameters not read by loadFrom()");
+        P result = (P) factory.get();
+        result.putAll(this);
+        result.putAll(values);
+        ((SimProperties) result).factory = factory;
+        result.init();
+        return result;
+    }
+
+    /**
+     * @param key          key of a list of numbers separated by commas or spaces
+     * @param defaultValue list used if the key is missing
+     * @return values of the list
+     */
+    protected double[] getDoubleList(String key, String defaultValue) {
+        String[] values = getProperty(key, defaultValue).trim().split("[,\\s]+");
+        double[] result = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = Double.parseDouble(values[i]);
+        }
+        return result;
+    }
+
+    /**
+     * @param key          key of a list of integers separated by commas or spaces
+     * @param defaultValue list used if the key is missing
+     * @return values of the list
+     */
+    protected int[] getIntList(String key, String defaultValue) {
+        String[] values = getProperty(key, defaultValue).trim().split("[,\\s]+");
+        int[] result = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = Integer.parseInt(values[i]);
+        }
+        return result;
+    }
+
+    protected static <P extends SimProperties> P loadFrom(String fileName, Supplier<P> factory)
+            throws IOException {
+        P result = factory.get();
+        try (Reader reader = new FileReader(fileName)) {
+            result.load(reader);
+        }
+        ((SimProperties) result).factory = factory;
+        result.init();
+        return result;
+    }
+}
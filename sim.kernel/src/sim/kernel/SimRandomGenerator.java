@@ -0,0 +1,258 @@
+package sim.kernel;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGenerator.LeapableGenerator;
+import java.util.random.RandomGenerator.SplittableGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * Random variates used by the simulation models.
+ * <p>
+ * Backed by a Java 17 RandomGenerator algorithm, L64X128MixRandom by default, without any
+ * synchronization: a generator belongs to one simulation thread. Independent generators for
+ * parallel replications come from streams(), and independent generators for the entities of one
+ * model (arrivals, services, ...) from substream(). Both derive the new generators from the state
+ * of this one, so a run is reproducible from its seed:
+ * <ul>
+ * <li>splittable algorithms (L64X128MixRandom and the other LXM generators, SplittableRandom)
+ * split the generator,</li>
+ * <li>leapable algorithms (Xoshiro256PlusPlus, Xoroshiro128PlusPlus) leap ahead for streams and
+ * jump ahead for substreams, so they never overlap,</li>
+ * <li>other algorithms ("Random", the java.util.Random stream of earlier versions) seed the new
+ * generator from this one.</li>
+ * </ul>
+ * For variance reduction, a model draws each kind of variate (interarrival times, service times,
+ * balking decisions, demand sizes, ...) from its own substream, so alternative configurations run
+ * on the same seed consume the same random numbers for the same purpose (common random numbers).
+ * antitheticPair() gives two generators in inversion mode, where every variate is the inverse
+ * transform of one uniform u, the second one using 1 - u instead of u (antithetic variates).
+ * <p>
+ * A checkpointable() generator runs the default algorithm on a copy of L64X128MixRandom whose state
+ * can be written to a checkpoint and restored (see Checkpoint), with the same random numbers as
+ * the JDK generator.
+ */
+public class SimRandomGenerator {
+
+    public static final String DEFAULT_ALGORITHM = "L64X128MixRandom";
+
+    final private String algorithm;
+    final private RandomGenerator rand;
+    final private boolean inversion; // every variate from one uniform by inverse transform
+    final private boolean antithetic; // inversion with 1 - u instead of u
+
+    public SimRandomGenerator(long seed) {
+        this(DEFAULT_ALGORITHM, seed);
+    }
+
+    /**
+     * @param algorithm name of a RandomGenerator algorithm, see RandomGeneratorFactory
+     * @param seed      seed of the generator
+     */
+    public SimRandomGenerator(String algorithm, long seed) {
+        this(algorithm, RandomGeneratorFactory.of(algorithm).create(seed));
+    }
+
+    private SimRandomGenerator(String algorithm, RandomGenerator rand) {
+        this(algorithm, rand, false, false);
+    }
+
+    private SimRandomGenerator(String algorithm, RandomGenerator rand, boolean inversion, boolean antithetic) {
+        this.algorithm = algorithm;
+        this.rand = rand;
+        this.inversion = inversion;
+        this.antithetic = antithetic;
+    }
+
+    /**
+     * Generator whose state can be written to a checkpoint, see writeTo().
+     *
+     * @param algorithm must be DEFAULT_ALGORITHM
+     * @param seed      seed of the generator
+     */
+    public static SimRandomGenerator checkpointable(String algorithm, long seed) {
+        if (!algorithm.equals(DEFAULT_ALGORITHM))
+            throw new IllegalArgumentException("checkpoints need the " + DEFAULT_ALGORITHM + " algorithm, not " + algorithm);
+        return new SimRandomGenerator(algorithm, new L64X128Mix(seed));
+    }
+
+    public String algorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Independent generators, e.g. one per replication. Advances this generator.
+     *
+     * @param numStreams number of generators
+     * @return generators that do not share their state with this one nor with each other
+     */
+    public SimRandomGenerator[] streams(int numStreams) {
+        SimRandomGenerator[] result = new SimRandomGenerator[numStreams];
+        for (int i = 0; i < numStreams; i++) {
+            result[i] = rand instanceof LeapableGenerator leapable ?
+                    new SimRandomGenerator(algorithm, leapable.copyAndLeap(), inversion, antithetic) :
+                    substream();
+        }
+        return result;
+    }
+
+    /**
+     * Independent generator, e.g. for one entity of a model. Advances this generator.
+     *
+     * @return generator that does not share its state with this one
+     */
+    public SimRandomGenerator substream() {
+        if (rand instanceof L64X128Mix checkpointable) {
+            return new SimRandomGenerator(algorithm, checkpointable.split(), inversion, antithetic);
+        }
+        if (rand instanceof SplittableGenerator splittable) {
+            return new SimRandomGenerator(algorithm, splittable.split(), inversion, antithetic);
+        }
+        if (rand instanceof LeapableGenerator leapable) {
+            return new SimRandomGenerator(algorithm, leapable.copyAndJump(), inversion, antithetic);
+        }
+        return new SimRandomGenerator(algorithm, RandomGeneratorFactory.of(algorithm).create(rand.nextLong()),
+                inversion, antithetic);
+    }
+
+    /**
+     * Two generators in inversion mode on the same new seed, the second one antithetic: where the
+     * first draws a variate from the uniform u, the second one draws it from 1 - u, so their
+     * outputs are negatively correlated. Their substreams are antithetic too, so a model using
+     * per-purpose substreams keeps the pairing of every variate. Advances this generator.
+     *
+     * @return the generator and its antithetic twin
+     */
+    public SimRandomGenerator[] antitheticPair() {
+        long seed = rand.nextLong();
+        if (rand instanceof L64X128Mix) {
+            return new SimRandomGenerator[]{
+                    new SimRandomGenerator(algorithm, new L64X128Mix(seed), true, false),
+                    new SimRandomGenerator(algorithm, new L64X128Mix(seed), true, true)};
+        }
+        RandomGeneratorFactory<RandomGenerator> factory = RandomGeneratorFactory.of(algorithm);
+        return new SimRandomGenerator[]{
+                new SimRandomGenerator(algorithm, factory.create(seed), true, false),
+                new SimRandomGenerator(algorithm, factory.create(seed), true, true)};
+    }
+
+    public boolean isAntithetic() {
+        return antithetic;
+    }
+
+    /**
+     * @return uniform in range ]0, 1[ in inversion mode, 1 - u for an antithetic generator
+     */
+    private double uniform() {
+        double u = ((rand.nextLong() >>> 11) + 0.5) * 0x1.0p-53;
+        return antithetic ? 1 - u : u;
+    }
+
+    /**
+     * @return uniform random value in range [0, 1[
+     */
+    public double nextDouble() {
+        return inversion ? uniform() : rand.nextDouble();
+    }
+
+    /**
+     * @return uniform random long, e.g. the seed of another generator
+     */
+    public long nextLong() {
+        return rand.nextLong();
+    }
+
+    /**
+     * @param bound upper bound (exclusive)
+     * @return uniform random integer in range [0, bound[
+     */
+    public int nextInt(int bound) {
+        if (!inversion) return rand.nextInt(bound);
+        if (bound <= 0) throw new IllegalArgumentException("bound must be positive");
+        return Math.min((int) (uniform() * bound), bound - 1);
+    }
+
+    /**
+     * Get random sample of uniform distribution between a and b values
+     *
+     * @param a lower bound
+     * @param b upper bound
+     * @return uniform random value in range [a, b]
+     */
+    public double uniformSample(double a, double b) {
+        double range = b - a;
+        return a + range * nextDouble();
+    }
+
+    /**
+     * Used for exponential and poisson random number generators.
+     * Sampled by the modified ziggurat algorithm of the RandomGenerator (C. McFarland, 2016),
+     * which avoids the log of the inverse transform for most samples. By inverse transform in
+     * inversion mode.
+     * @param mean
+     * @return exponential random variable
+     */
+    public double exponentialSample(double mean) {
+        if (inversion) return -mean * Math.log(uniform());
+        return mean * rand.nextExponential();
+    }
+
+    /**
+     * Sampled by the modified ziggurat algorithm of the RandomGenerator (the polar method
+     * of java.util.Random for the "Random" algorithm). By inverse transform in inversion mode.
+     *
+     * @param mean   mean of the distribution
+     * @param stdDev standard deviation of the distribution
+     * @return normal random variable
+     */
+    public double normalSample(double mean, double stdDev) {
+        if (inversion) return mean + stdDev * Quantiles.normal(uniform());
+        return mean + stdDev * rand.nextGaussian();
+    }
+
+    /**
+     * @param table probabilities of the outcomes
+     * @return outcome in range [0, table.size()[ drawn in O(1) time
+     */
+    public int discreteSample(AliasTable table) {
+        return table.sample(nextDouble());
+    }
+
+    /**
+     * @return true if the state of the generator can be written to a checkpoint
+     */
+    public boolean isCheckpointable() {
+        return rand instanceof L64X128Mix;
+    }
+
+    /**
+     * Write the state of the generator, e.g. to a checkpoint.
+     *
+     * @throws IllegalStateException if the generator is not checkpointable()
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(algorithm);
+        checkpointableGenerator().writeTo(out);
+    }
+
+    /**
+     * Replace the state of the generator by the one written by writeTo().
+     *
+     * @throws IllegalStateException if the generator is not checkpointable()
+     */
+    public void readFrom(DataInput in) throws IOException {
+        String writtenAlgorithm = in.readUTF();
+        if (!writtenAlgorithm.equals(algorithm))
+            throw new IOException("generator " + writtenAlgorithm + " restored on " + algorithm);
+        checkpointableGenerator().readFrom(in);
+    }
+
+    private L64X128Mix checkpointableGenerator() {
+        if (!(rand instanceof L64X128Mix checkpointable))
+            throw new IllegalStateException("generator not created by SimRandomGenerator.checkpointable()");
+        return checkpointable;
+    }
+
+}
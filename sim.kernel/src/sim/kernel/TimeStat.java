@@ -0,0 +1,82 @@
+package sim.kernel;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Time-average statistic on a continuous-time quantity, such as the number in queue
+ * or the server status (timest in Law's simlib).
+ */
+public class TimeStat {
+    private double area;
+    private double duration;
+    private double max;
+
+    public TimeStat() {
+        reset();
+    }
+
+    /**
+     * Update the area under the function with the value it kept since the last event.
+     *
+     * @param value              value of the quantity since the last event
+     * @param timeSinceLastEvent duration of the value
+     */
+    public void accumulate(double value, double timeSinceLastEvent) {
+        area += value * timeSinceLastEvent;
+        duration += timeSinceLastEvent;
+        if (value > max) max = value;
+    }
+
+    /**
+     * Discard the area accumulated so far.
+     */
+    public void reset() {
+        area = 0;
+        duration = 0;
+        max = 0;
+    }
+
+    public double area() {
+        return area;
+    }
+
+    public double duration() {
+        return duration;
+    }
+
+    /**
+     * @return time-average of the quantity, or 0 if no time elapsed yet
+     */
+    public double mean() {
+        return duration > 0 ? area / duration : 0;
+    }
+
+    public double max() {
+        return max;
+    }
+
+    /**
+     * Write the accumulators, e.g. to a checkpoint.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeDouble(area);
+        out.writeDouble(duration);
+        out.writeDouble(max);
+    }
+
+    /**
+     * Replace the accumulators by the ones written by writeTo().
+     */
+    public void readFrom(DataInput in) throws IOException {
+        area = in.readDouble();
+        duration = in.readDouble();
+        max = in.readDouble();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TimeStat{duration: %4.4f, mean: %4.4f}", duration, mean());
+    }
+}
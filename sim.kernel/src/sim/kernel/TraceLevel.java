@@ -0,0 +1,17 @@
+package sim.kernel;
+
+/**
+ * Amount of tracing of a run, "trace.level" key.
+ */
+public enum TraceLevel {
+    /* no tracer at all, the event loop pays nothing */
+    OFF,
+    /* one record per handled event (or per trace.sampling events) */
+    EVENTS,
+    /* event records plus the detail records of the model */
+    DETAIL;
+
+    public static TraceLevel of(String key) {
+        return valueOf(key.trim().toUpperCase());
+    }
+}
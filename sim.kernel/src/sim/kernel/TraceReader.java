@@ -0,0 +1,176 @@
+package sim.kernel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Reads a trace written by EventTracer, mapped in memory, to replay it into a model's statistics
+ * or to compute statistics offline, without running the simulation again.
+ * <p>
+ * Run from the command line, prints the summary() of a trace:
+ * <pre>
+ * java -cp sim.kernel/target/classes sim.kernel.TraceReader trace.bin
+ * </pre>
+ */
+public final class TraceReader implements Closeable {
+
+    /* largest mapped region, a multiple of the record size below 2 GB */
+    private static final long REGION_SIZE = (long) EventTracer.RECORD_SIZE << 25;
+
+    /**
+     * Receives the records of a trace, in the order they were written.
+     */
+    @FunctionalInterface
+    public interface Handler {
+        /**
+         * @param kind EventTracer.EVENT or EventTracer.DETAIL
+         * @param code ordinal of the event tag, or the model's code of a detail record
+         */
+        void record(int kind, int code, double time, long longData, double doubleData);
+    }
+
+    private final FileChannel channel;
+    private final TraceLevel level;
+    private final int sampling;
+    private final String[] tagNames;
+    private final long headerSize;
+    private final long numRecords;
+    private final List<MappedByteBuffer> regions = new ArrayList<>();
+
+    public TraceReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        ByteBuffer fixed = read(0, 8 + 5 * 4 + 8);
+        if (fixed.getLong() != EventTracer.MAGIC) throw new IOException("not an event trace: " + file);
+        int version = fixed.getInt();
+        if (version != EventTracer.VERSION) throw new IOException("unsupported trace version " + version);
+        if (fixed.getInt() != EventTracer.RECORD_SIZE) throw new IOException("unexpected record size");
+        level = TraceLevel.values()[fixed.getInt()];
+        sampling = fixed.getInt();
+        long writtenRecords = fixed.getLong();
+        tagNames = new String[fixed.getInt()];
+        long position = fixed.capacity();
+        for (int i = 0; i < tagNames.length; i++) {
+            int length = Short.toUnsignedInt(read(position, 2).getShort());
+            tagNames[i] = StandardCharsets.UTF_8.decode(read(position + 2, length)).toString();
+            position += 2 + length;
+        }
+        headerSize = position;
+        long availableRecords = (channel.size() - headerSize) / EventTracer.RECORD_SIZE;
+        if (writtenRecords > availableRecords) throw new IOException("truncated trace: " + file);
+        /* -1 if the tracer was not closed, e.g. the run crashed: the records written so far */
+        numRecords = writtenRecords >= 0 ? writtenRecords : availableRecords;
+        long recordsSize = numRecords * EventTracer.RECORD_SIZE;
+        for (long start = 0; start < recordsSize; start += REGION_SIZE) {
+            regions.add(channel.map(FileChannel.MapMode.READ_ONLY, headerSize + start,
+                    Math.min(REGION_SIZE, recordsSize - start)));
+        }
+    }
+
+    private ByteBuffer read(long position, int size) throws IOException {
+        ByteBuffer result = ByteBuffer.allocate(size);
+        while (result.hasRemaining()) {
+            if (channel.read(result, position + result.position()) < 0) throw new IOException("truncated header");
+        }
+        return result.flip();
+    }
+
+    public TraceLevel level() {
+        return level;
+    }
+
+    /**
+     * @return one event record every sampling events, 1 if all events are in the trace
+     */
+    public int sampling() {
+        return sampling;
+    }
+
+    public String[] tagNames() {
+        return tagNames.clone();
+    }
+
+    public long numRecords() {
+        return numRecords;
+    }
+
+    /**
+     * Hand every record of the trace to the handler, in order.
+     */
+    public void replay(Handler handler) {
+        for (MappedByteBuffer region : regions) {
+            ByteBuffer records = region.duplicate();
+            while (records.hasRemaining()) {
+                double time = records.getDouble();
+                long longData = records.getLong();
+                double doubleData = records.getDouble();
+                int kind = records.getInt();
+                int code = records.getInt();
+                handler.record(kind, code, time, longData, doubleData);
+            }
+        }
+    }
+
+    /**
+     * @return number of records, time span, and for each event tag its count, rate and the statistics
+     * of the time between two of its events
+     */
+    public String summary() {
+        long[] counts = new long[tagNames.length];
+        double[] lastTimes = new double[tagNames.length];
+        SampleStat[] intervals = new SampleStat[tagNames.length];
+        for (int i = 0; i < tagNames.length; i++) {
+            intervals[i] = new SampleStat();
+        }
+        long[] numDetails = new long[1];
+        double[] span = {Double.NaN, Double.NaN};
+        replay((kind, code, time, longData, doubleData) -> {
+            if (Double.isNaN(span[0])) span[0] = time;
+            span[1] = time;
+            if (kind != EventTracer.EVENT) {
+                numDetails[0]++;
+                return;
+            }
+            if (counts[code]++ > 0) intervals[code].record(time - lastTimes[code]);
+            lastTimes[code] = time;
+        });
+
+        StringJoiner joiner = new StringJoiner("\n");
+        joiner.add(String.format("Trace level %s, sampling 1/%d, %d records (%d detail)",
+                level, sampling, numRecords, numDetails[0]));
+        joiner.add(String.format("Time from %4.4f to %4.4f", span[0], span[1]));
+        joiner.add(String.format("%-20s %14s %14s %14s %14s", "event", "count", "rate", "mean interval",
+                "std. dev."));
+        double duration = span[1] - span[0];
+        for (int i = 0; i < tagNames.length; i++) {
+            if (counts[i] == 0) continue;
+            joiner.add(String.format("%-20s %14d %14.4f %14.4f %14.4f", tagNames[i], counts[i],
+                    counts[i] / duration, intervals[i].mean(), intervals[i].stdDev()));
+        }
+        return joiner.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        regions.clear();
+        channel.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: java sim.kernel.TraceReader TRACE_FILE");
+            System.exit(1);
+        }
+        try (TraceReader reader = new TraceReader(Path.of(args[0]))) {
+            System.out.println(reader.summary());
+        }
+    }
+}
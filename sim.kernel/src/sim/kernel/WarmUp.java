@@ -0,0 +1,163 @@
+package sim.kernel;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Warm-up period of a steady-state simulation, whose statistics are discarded to remove the bias of
+ * the initial conditions. The warm-up ends at the first event on or after a simulation time and
+ * after a number of handled events; either limit is ignored when it is zero.
+ * <p>
+ * A warm-up detected by MSER-5 has no limits: the model records its output series (delays in queue)
+ * with record(), and the warm-up ends at the first check where the MSER-5 truncation point of every
+ * series is in the first half of its observations. The checks are made when the series reach 64
+ * batches, then each time they double, so the warm-up is detected in the run itself, with no pilot
+ * run, and ends within twice the observations of the truncation point. If it is never detected,
+ * nothing is discarded.
+ * <p>
+ * Stateful, a model creates one per run and checks it once per event:
+ * <pre>
+ *     if (warmUp.endsAt(eventList)) resetStats();
+ * </pre>
+ */
+public class WarmUp {
+    private static final int FIRST_CHECK_BATCHES = 64;
+
+    private final double time;
+    private final long numEvents;
+
+    private boolean over;
+    private double endTime;
+
+    private Mser5[] series; // output series of a warm-up detected by MSER-5, null otherwise or once over
+    private int nextCheckBatches = FIRST_CHECK_BATCHES;
+
+    /**
+     * @param time      simulation time of the end of the warm-up, 0 for no time limit
+     * @param numEvents number of events of the warm-up, 0 for no events limit
+     */
+    public WarmUp(double time, long numEvents) {
+        if (time < 0 || numEvents < 0) throw new IllegalArgumentException("negative warm-up");
+        this.time = time;
+        this.numEvents = numEvents;
+        this.over = time == 0 && numEvents == 0;
+    }
+
+    /**
+     * @return a warm-up that is over from the start, statistics are collected from time 0
+     */
+    public static WarmUp none() {
+        return new WarmUp(0, 0);
+    }
+
+    /**
+     * @param numSeries number of output series recorded by the model, e.g. one per queue
+     * @return a warm-up that ends when MSER-5 detects the end of the initial transient of every series
+     */
+    public static WarmUp mser5(int numSeries) {
+        if (numSeries < 1) throw new IllegalArgumentException("no output series");
+        WarmUp result = new WarmUp(0, 0);
+        result.over = false;
+        result.series = new Mser5[numSeries];
+        for (int i = 0; i < numSeries; i++) {
+            result.series[i] = new Mser5();
+        }
+        return result;
+    }
+
+    /**
+     * Record an observation of an output series, ignored unless the warm-up is detected by MSER-5
+     * and not over.
+     *
+     * @param series index of the series
+     * @param value  observed value
+     * @param time   simulation time of the observation
+     */
+    public void record(int series, double value, double time) {
+        if (this.series != null) this.series[series].record(value, time);
+    }
+
+    /**
+     * @param eventList event list of the run
+     * @return true once, at the first call after the warm-up limits were reached
+     */
+    public boolean endsAt(EventList<?> eventList) {
+        if (over) return false;
+        if (series != null) {
+            if (!transientIsOver()) return false;
+            series = null;
+        } else if (eventList.getTime() < time || eventList.numEvents() < numEvents) {
+            return false;
+        }
+        over = true;
+        endTime = eventList.getTime();
+        return true;
+    }
+
+    /**
+     * @return true if every series has the batches of the next check, and its truncation point is in
+     * the first half of them
+     */
+    private boolean transientIsOver() {
+        for (Mser5 s : series) {
+            if (s.numBatches() < nextCheckBatches) return false;
+        }
+        for (Mser5 s : series) {
+            if (s.truncationBatch() >= s.numBatches() / 2) {
+                nextCheckBatches <<= 1;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isOver() {
+        return over;
+    }
+
+    /**
+     * @return simulation time when the warm-up ended, 0 if there was no warm-up
+     */
+    public double endTime() {
+        return endTime;
+    }
+
+    /**
+     * Write the limits and the progress of the warm-up, e.g. to a checkpoint.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeDouble(time);
+        out.writeLong(numEvents);
+        out.writeBoolean(over);
+        out.writeDouble(endTime);
+        out.writeInt(series == null ? 0 : series.length);
+        if (series == null) return;
+        out.writeInt(nextCheckBatches);
+        for (Mser5 s : series) {
+            s.writeTo(out);
+        }
+    }
+
+    /**
+     * @return warm-up written by writeTo(), at the same stage
+     */
+    public static WarmUp readFrom(DataInput in) throws IOException {
+        WarmUp result = new WarmUp(in.readDouble(), in.readLong());
+        result.over = in.readBoolean();
+        result.endTime = in.readDouble();
+        int numSeries = in.readInt();
+        if (numSeries == 0) return result;
+        result.nextCheckBatches = in.readInt();
+        result.series = new Mser5[numSeries];
+        for (int i = 0; i < numSeries; i++) {
+            result.series[i] = Mser5.readFrom(in);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WarmUp{time: %4.3f, numEvents: %d, over: %b}", time, numEvents, over);
+    }
+}
@@ -0,0 +1,3 @@
+enum EventTag {
+    NONE, JOB_ARRIVAL, END_CPU_RUN, END_OF_SERVICE, END_OF_SIMULATION
+}
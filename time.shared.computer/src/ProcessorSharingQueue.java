@@ -0,0 +1,92 @@
+import java.util.PriorityQueue;
+
+/**
+ * Jobs sharing the CPU by egalitarian processor sharing, the limit of round robin when the quantum
+ * tends to zero: the n resident jobs are served at the same time, each one at rate efficiency / n.
+ * <p>
+ * The state is advanced analytically between arrivals and completions. All resident jobs attain
+ * the same service per job, so a job arriving when that service is V completes when it reaches
+ * V + its service time (its finish tag). The resident jobs are ordered by finish tag, and only
+ * the job with the smallest one needs a completion event.
+ * IS NOT thread safe.
+ */
+public class ProcessorSharingQueue {
+
+    private final double efficiency; // useful fraction of the CPU time, 1 without swap overhead
+    private final PriorityQueue<SimJob> jobs = new PriorityQueue<>((a, b) -> Double.compare(a.finishTag, b.finishTag));
+    private double attainedService; // service received by each resident job since the beginning, V
+    private double lastTime;
+    private double totalQueueLength;
+    private int numServedJobs;
+
+    /**
+     * @param efficiency useful fraction of the CPU time, quantum / (quantum + swap) to charge the
+     *                   swap overhead of round robin, 1 for none
+     */
+    public ProcessorSharingQueue(double efficiency) {
+        if (efficiency <= 0 || efficiency > 1) throw new IllegalArgumentException("efficiency not in ]0, 1]");
+        this.efficiency = efficiency;
+    }
+
+    /**
+     * Serve the resident jobs until the time.
+     */
+    private void advance(double time) {
+        double duration = time - lastTime;
+        if (!jobs.isEmpty()) {
+            attainedService += duration * efficiency / jobs.size();
+        }
+        totalQueueLength += jobs.size() * duration;
+        lastTime = time;
+    }
+
+    public void add(SimJob job, double time) {
+        advance(time);
+        job.finishTag = attainedService + job.getLeft();
+        jobs.add(job);
+    }
+
+    /**
+     * @return time the next job completes if no job arrives before, infinity if the queue is empty
+     */
+    public double nextCompletionTime() {
+        if (jobs.isEmpty()) return Double.POSITIVE_INFINITY;
+        double left = Math.max(0, jobs.peek().finishTag - attainedService);
+        return lastTime + left * jobs.size() / efficiency;
+    }
+
+    /**
+     * Remove the job completing at the time, nextCompletionTime().
+     *
+     * @return the completed job
+     */
+    public SimJob removeCompleted(double time) {
+        advance(time);
+        SimJob job = jobs.remove();
+        job.decrease(job.getLeft());
+        numServedJobs++;
+        return job;
+    }
+
+    public int size() {
+        return jobs.size();
+    }
+
+    public boolean isEmpty() {
+        return jobs.isEmpty();
+    }
+
+    public double getTotalQueueLength() {
+        return totalQueueLength;
+    }
+
+    public int getNumServedJobs() {
+        return numServedJobs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("size: %s, attained service: %4.4f, next completion: %4.4f",
+                jobs.size(), attainedService, nextCompletionTime());
+    }
+}
@@ -1,35 +1,56 @@
-import java.util.ArrayList;
-import java.util.List;
-
-public class RoundRobinQueue<T> {
-//IS NOT thread safe
+import java.util.NoSuchElementException;
+import java.util.StringJoiner;
+
+/**
+ * Jobs sharing the CPU in round robin, with the time-average of their number.
+ * <p>
+ * Intrusive circular doubly-linked list: the jobs are their own links (they extend Node), so add,
+ * next and remove are O(1) and allocate nothing, whatever the number of terminals. The cursor is
+ * the job to run next, or in service: next() returns it and the cursor stays on it during its run.
+ * A new job is added just before the cursor, at the end of the round, and requeue() moves the cursor
+ * past a preempted job, which so goes behind the jobs that arrived during its quantum (Law's
+ * time-shared computer model).
+ * IS NOT thread safe.
+ *
+ * @param <T> type of the jobs
+ */
+public class RoundRobinQueue<T extends RoundRobinQueue.Node<T>> {
+
+    /**
+     * Links of an element of one RoundRobinQueue at a time.
+     */
+    public static class Node<T extends Node<T>> {
+        T previous;
+        T next;
+        RoundRobinQueue<T> queue; // queue of the element, null if none
+    }
 
     private double totalQueueLength;
     private int numServedJobs;
     private double lastTime;
-    final private List<T> queue;
-    private int index;
+    private T cursor; // job to run next or in service, null if the queue is empty
+    private int size;
 
     public RoundRobinQueue() {
         totalQueueLength = 0;
         numServedJobs = 0;
         lastTime = 0;
-        queue = new ArrayList<>();
-        index = 0;
+        cursor = null;
+        size = 0;
     }
 
     private void update(double time) {
         double duration = time - lastTime;
-        totalQueueLength += queue.size() * duration;
+        totalQueueLength += size * duration;
         lastTime = time;
     }
 
     public int size() {
-        return queue.size();
+        return size;
     }
 
     public boolean isEmpty() {
-        return queue.isEmpty();
+        return size == 0;
     }
 
     public double getTotalQueueLength() {
@@ -40,76 +61,80 @@ public class RoundRobinQueue<T> {
         return numServedJobs;
     }
 
-    //TODO ,for testing only, delete when application is ready
-    private void add(T job) {
-        add(job, 0);
-    }
-
-    //TODO ,for testing only, delete when application is ready
-    private void remove(T job) {
-        remove(job, 0);
-    }
-
+    /**
+     * Add the job at the end of the round, does nothing if the job is already in the queue.
+     */
     public void add(T job, double lastTime) {
-        if (queue.contains(job)) return;
+        if (job.queue == this) return;
+        if (job.queue != null) throw new IllegalStateException("job already in another queue: " + job);
         update(lastTime);
-        queue.add(job);
+        if (cursor == null) {
+            job.previous = job;
+            job.next = job;
+            cursor = job;
+        } else {
+            job.next = cursor;
+            job.previous = cursor.previous;
+            cursor.previous.next = job;
+            cursor.previous = job;
+        }
+        job.queue = this;
+        size++;
     }
 
+    /**
+     * Remove a served job, does nothing if the job is not in the queue.
+     */
     public void remove(T job, double time) {
-        if (queue.isEmpty()) return;
+        if (job.queue != this) return;
         update(time);
         numServedJobs++;
-        queue.remove(job);
-        index = queue.size() > 0 ?
-                index % queue.size() :
-                0;
+        if (size == 1) {
+            cursor = null;
+        } else {
+            job.previous.next = job.next;
+            job.next.previous = job.previous;
+            if (cursor == job) cursor = job.next;
+        }
+        job.previous = null;
+        job.next = null;
+        job.queue = null;
+        size--;
     }
 
     public boolean contains(T element) {
-        return queue.contains(element);
+        return element.queue == this;
     }
 
+    /**
+     * @return the next job to run, the cursor stays on it until it is requeued or removed
+     */
     public T next() {
-        T element = queue.get(index);
-        index = (index + 1) % queue.size();
-        return element;
+        if (cursor == null) throw new NoSuchElementException("empty round robin queue");
+        return cursor;
+    }
+
+    /**
+     * Put the job at the cursor, preempted at the end of its quantum, at the end of the round,
+     * behind the jobs added during its run. The cursor moves to the following job.
+     */
+    public void requeue() {
+        if (cursor == null) throw new NoSuchElementException("empty round robin queue");
+        cursor = cursor.next;
     }
 
     public boolean hasNext() {
-        return queue.size() > 0;
+        return size > 0;
     }
 
     @Override
     public String toString() {
-        return String.format("index: %s, size: %s, elements: %s",
-                index, queue.size(), queue.toString());
-    }
-
-    public static void main(String[] args) {
-        //TODO delete later
-        RoundRobinQueue<Integer> list = new RoundRobinQueue<>();
-//
-        list.add(0);
-        list.add(2);
-        System.out.println("list.next() = " + list.next());
-        System.out.println("list.next() = " + list.next());
-        System.out.println("list.next() = " + list.next());
-        System.out.println("list.next() = " + list.next());
-        list.add(1);
-
-        System.out.println("list.next() = " + list.next());
-        System.out.println("list.next() = " + list.next());
-        System.out.println("list.next() = " + list.next());
-        System.out.println("list.next() = " + list.next());
-        list.remove(1);
-        System.out.println("list.next() = " + list.next());
-        System.out.println("list.next() = " + list.next());
-        System.out.println("list.next() = " + list.next());
-        System.out.println("list.next() = " + list.next());
-        System.out.println("list.next() = " + list.next());
-        System.out.println("list.next() = " + list.next());
+        StringJoiner elements = new StringJoiner(", ", "[", "]");
+        T element = cursor;
+        for (int i = 0; i < size; i++) {
+            elements.add(String.valueOf(element));
+            element = element.next;
+        }
+        return String.format("size: %s, elements from the cursor: %s", size, elements);
     }
-
 }
-
@@ -1,12 +1,15 @@
 import java.util.concurrent.atomic.AtomicInteger;
 
-public class SimJob {
+public class SimJob extends RoundRobinQueue.Node<SimJob> {
     final static AtomicInteger ID = new AtomicInteger();
+    final static double EPSILON = 1e-6; //job left at or below which a job is complete, the smallest job amount is above it
 
     final private int id; //unique id per job
     public final double jobAmount;
     public final double submitTime;
     private double jobLeft;
+    int index; //index of the terminal of the job in the jobs table of the model, carried by the events of the job
+    double finishTag; //attained service per job at which the job completes, processor sharing only
 
 
     public SimJob(double submitTime, double jobAmount) {
@@ -17,7 +20,7 @@ public class SimJob {
     }
 
     public boolean isComplete() {
-        return jobLeft <= 1e-6;
+        return jobLeft <= EPSILON;
     }
 
     public double decrease(double quantum) {
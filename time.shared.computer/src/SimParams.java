@@ -1,8 +1,8 @@
-import java.io.FileReader;
+import sim.kernel.SimProperties;
+
 import java.io.IOException;
-import java.util.Properties;
 
-public class SimParams extends Properties {
+public class SimParams extends SimProperties {
 
     private int numTerminals = 0;
     private double meanThinkTime = 0;
@@ -12,15 +12,15 @@ public class SimParams extends Properties {
     private int numJobsRequired = 0;
     private double endSimulationTime = 0;
     private String outFilePath;
+    private boolean processorSharing;
+    private boolean swapOverhead;
 
     public static SimParams loadFrom(String fileName) throws IOException {
-        SimParams result = new SimParams();
-        result.load(new FileReader(fileName));
-        result.init();
-        return result;
+        return loadFrom(fileName, SimParams::new);
     }
 
-    private void init() {
+    @Override
+    protected void init() {
         numTerminals = Integer.parseInt(getProperty("num.terminals", "30"));
         meanThinkTime = Double.parseDouble(getProperty("mean.think.time", "25"));
         meanServiceTime = Double.parseDouble(getProperty("mean.service.time", "0.8"));
@@ -29,6 +29,12 @@ public class SimParams extends Properties {
         numJobsRequired = Integer.parseInt(getProperty("num.required.jobs", "1000"));
         endSimulationTime = Double.parseDouble(getProperty("end.simulation.time", "3600000"));
         outFilePath = getProperty("out.file.path", "cpu_time_shared_out.txt");
+        processorSharing = switch (getProperty("cpu.scheduling", "round.robin")) {
+            case "round.robin" -> false;
+            case "processor.sharing" -> true;
+            default -> throw new IllegalArgumentException("unknown cpu.scheduling " + getProperty("cpu.scheduling"));
+        };
+        swapOverhead = Boolean.parseBoolean(getProperty("processor.sharing.swap.overhead", "false"));
     }
 
     public int terminals() {
@@ -63,4 +69,20 @@ public class SimParams extends Properties {
         return outFilePath;
     }
 
+    /**
+     * @return true for the analytic processor-sharing engine, "cpu.scheduling = processor.sharing",
+     * false for the quantum-level round robin ("round.robin", default)
+     */
+    public boolean processorSharing() {
+        return processorSharing;
+    }
+
+    /**
+     * @return fraction of the CPU time serving jobs in processor sharing: quantum / (quantum + swap)
+     * with "processor.sharing.swap.overhead = true", 1 otherwise
+     */
+    public double processorSharingEfficiency() {
+        return swapOverhead ? quantumTime / (quantumTime + swapTime) : 1;
+    }
+
 }
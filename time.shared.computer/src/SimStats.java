@@ -1,9 +1,18 @@
+import sim.kernel.BatchMeans;
+import sim.kernel.SampleStat;
+import sim.kernel.TimeStat;
+
 /**
  * Wrapper to hold statistical variables, no setter or getters !
  */
 public class SimStats {
-    public double totalResponseTime = 0;
-    public double totalJobsInQueue = 0;
-    public double totalServerUtilization = 0;
+    public final SampleStat responseTimes = new SampleStat();
+    public final TimeStat jobsInQueue = new TimeStat();
+    public final TimeStat serverUtilization = new TimeStat();
     public int numCompletedJobs = 0;
+
+    /* batch means of the same measures, for the confidence intervals of a single run */
+    public final BatchMeans responseTimesBatches = new BatchMeans();
+    public final BatchMeans jobsInQueueBatches = new BatchMeans();
+    public final BatchMeans serverUtilizationBatches = new BatchMeans();
 }
@@ -1,3 +1,12 @@
+import sim.kernel.EventList;
+import sim.kernel.EventTracer;
+import sim.kernel.ParameterSweep;
+import sim.kernel.ReplicationRunner;
+import sim.kernel.SequentialStop;
+import sim.kernel.SimEvent;
+import sim.kernel.SimModel;
+import sim.kernel.SimRandomGenerator;
+
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -8,56 +17,104 @@ import java.util.StringJoiner;
  * Reference: A. M. Law, Simulation Modeling & Analysis 3rd edition,
  * Example 2.5 page 129 Time-Shared Computer Model
  */
-public class TimeSharedComputer {
+public class TimeSharedComputer implements SimModel {
+    /* code of the DETAIL trace records of a CPU run start, with the job index and the run length */
+    static final int TRACE_CPU_RUN = 0;
 
-    EventList eventList;
+    EventList<EventTag> eventList;
     SimRandomGenerator randGen;
+    SimRandomGenerator thinkStream, serviceStream; // substreams of randGen
     SimStats stats;
     SimParams params;
     boolean cpuIsIdle = true;
+    SequentialStop sequentialStop; // precision-driven end of the run, null for num.required.jobs jobs
 
     RoundRobinQueue<SimJob> jobQueue;
+    ProcessorSharingQueue psQueue; // analytic processor-sharing engine, null for the round robin one
+    long completionVersion; // stamp of the only valid END_OF_SERVICE event, the others are stale
+    EventTracer tracer; // trace of a single run, null when tracing is off
+
+    /* current job of each terminal, events carry the index of the terminal of their job in longData */
+    SimJob[] jobs;
+
+    public TimeSharedComputer() {
+    }
+
+    /**
+     * @param params input parameters, shared by the replications of the model
+     */
+    public TimeSharedComputer(SimParams params) {
+        this.params = params;
+    }
 
     public void initSimulation(String inputParamsFile) throws IOException {
+        /* Read input parameters. */
+        SimParams params = SimParams.loadFrom(inputParamsFile);
+        initSimulation(params, params.newRandomGenerator(1));
+    }
+
+    /**
+     * Initialize the simulation.
+     *
+     * @param params  input parameters
+     * @param randGen random generator of the random variates
+     */
+    public void initSimulation(SimParams params, SimRandomGenerator randGen) {
+        this.params = params;
+
         /* Initialize time and the event list.  Since no order is outstanding */
-        this.eventList = new EventList(0.0);
+        this.eventList = new EventList<>(0.0, EventTag.NONE, params.eventListType());
+
+        this.randGen = randGen;
 
-        this.randGen = new SimRandomGenerator(1);
+        /* One substream per kind of variate, so that configurations run on the same seed draw the
+           same random numbers for the same purpose (common random numbers). */
+        this.thinkStream = randGen.substream();
+        this.serviceStream = randGen.substream();
+        this.sequentialStop = params.sequentialStop();
 
         /* Initialize the statistical counters. */
         this.stats = new SimStats();
 
-        /* Read input parameters. */
-        this.params = SimParams.loadFrom(inputParamsFile);
-
         /* Initialize the state variables. */
         this.jobQueue = new RoundRobinQueue<>();
+        this.psQueue = params.processorSharing() ?
+                new ProcessorSharingQueue(params.processorSharingEfficiency()) : null;
+        this.completionVersion = 0;
+        this.cpuIsIdle = true;
+        this.jobs = new SimJob[params.terminals()];
 
 
         //schedule the first jobs submitted by all terminals
         for (int i = 0; i < params.terminals(); i++) {
-            SimJob job = thinkAndThenGenerateJob(eventList.getTime());
-            SimEvent jobEvent = new SimEvent(EventTag.JOB_ARRIVAL, job.submitTime, job);
-            assert jobEvent.time >= eventList.getTime();
-            eventList.add(jobEvent);
+            SimJob job = thinkAndThenGenerateJob(i, eventList.getTime());
+            assert job.submitTime >= eventList.getTime();
+            eventList.schedule(EventTag.JOB_ARRIVAL, job.submitTime, job.index);
         }
 
     }
 
-    public SimEvent timing() {
-        /* Check to see whether the event list is empty. */
-        if (eventList.size() == 0) return SimEvent.NONE;
-        SimEvent nextEvent = eventList.removeHeadEvent();
-        return nextEvent;
+    public SimEvent<EventTag> timing() {
+        /* The event list returns the NONE event if it is empty. */
+        return eventList.removeHeadEvent();
     }
 
     /**
      * Update area accumulators for time-average statistics.
      */
     void updateTimeAvgStats() {
-        stats.totalServerUtilization += cpuIsIdle ? 0 : eventList.timeSinceLastEvent();
-        stats.totalJobsInQueue +=
-                eventList.timeSinceLastEvent() * jobQueue.size();
+        stats.serverUtilization.accumulate(cpuIsIdle ? 0 : 1, eventList.timeSinceLastEvent());
+        stats.jobsInQueue.accumulate(numResidentJobs(), eventList.timeSinceLastEvent());
+        stats.serverUtilizationBatches.accumulate(cpuIsIdle ? 0 : 1, eventList.timeSinceLastEvent());
+        stats.jobsInQueueBatches.accumulate(numResidentJobs(), eventList.timeSinceLastEvent());
+    }
+
+    int numResidentJobs() {
+        return psQueue != null ? psQueue.size() : jobQueue.size();
+    }
+
+    double totalQueueLength() {
+        return psQueue != null ? psQueue.getTotalQueueLength() : jobQueue.getTotalQueueLength();
     }
 
     /**
@@ -72,12 +129,25 @@ public class TimeSharedComputer {
         result.add(String.format("Mean service time %11.3f seconds", params.meanServiceTime()));
         result.add(String.format("Quantum %11.3f seconds", params.quantum()));
         result.add(String.format("Swap time %11.3f seconds", params.swap()));
+        if (psQueue != null) {
+            result.add(String.format("Processor sharing, CPU efficiency %5.3f", params.processorSharingEfficiency()));
+        }
         result.add(String.format("Number of jobs processed %12d", params.numJobsRequired()));
-        result.add(String.format("Average TimeSharedComputer utilization %11.3f", stats.totalServerUtilization / simulationTime));
-        result.add(String.format("Average response time %11.3f", stats.totalResponseTime / stats.numCompletedJobs));
-        result.add(String.format("Average number in queue %11.3f", stats.totalJobsInQueue / simulationTime));
-        result.add(String.format("jobqueue response time %11.3f", jobQueue.getTotalQueueLength() / stats.numCompletedJobs));//debug
-        result.add(String.format("jobqueue number in queue %11.3f", jobQueue.getTotalQueueLength() / simulationTime));//debug
+        result.add(String.format("Average TimeSharedComputer utilization %11.3f", stats.serverUtilization.mean()));
+        result.add(String.format("Average response time %11.3f", stats.responseTimes.mean()));
+        result.add(String.format("Average number in queue %11.3f", stats.jobsInQueue.mean()));
+        result.add(String.format("jobqueue response time %11.3f", totalQueueLength() / stats.numCompletedJobs));//debug
+        result.add(String.format("jobqueue number in queue %11.3f", totalQueueLength() / simulationTime));//debug
+        if (sequentialStop != null) {
+            result.add(String.format("Relative half-width target %5.3f %s", sequentialStop.relativeHalfWidth(),
+                    sequentialStop.targetMet() ? "met" : "NOT met, maximum number of events reached"));
+        }
+        if (params.batchMeans() || sequentialStop != null) {
+            result.add("Batch-means confidence intervals:");
+            result.add("CPU utilization " + stats.serverUtilizationBatches.format(0.95));
+            result.add("Response time " + stats.responseTimesBatches.format(0.95));
+            result.add("Number in queue " + stats.jobsInQueueBatches.format(0.95));
+        }
         /* Compute and write estimates of desired measures of performance. */
 
         String toPrint = result.toString();
@@ -87,15 +157,29 @@ public class TimeSharedComputer {
 
 
     public void runSimulation() throws IOException {
+        /* Trace the events to the "trace.file" file with "trace.level" events or detail. */
+        try (EventTracer tracer = params.eventTracer(EventTag.class)) {
+            this.tracer = tracer;
+            eventList.trace(tracer);
+            simulate();
+            eventList.trace(null);
+            this.tracer = null;
+        }
 
+        System.out.println(report());
+    }
+
+    /**
+     * Run the simulation until its end.
+     */
+    void simulate() {
          /* Run the simulation until it terminates after an END_OF_SIMULATION event
             occurs. */
-        while (stats.numCompletedJobs < params.numJobsRequired()) {
+        while (!isOver()) {
             assert eventList.size() > 0;
 
             /* Determine the next event. */
-            final SimEvent nextEvent = timing();
-            System.out.println("nextEvent = " + nextEvent.tag);
+            final SimEvent<EventTag> nextEvent = timing();
 
             /* Update time-average statistical accumulators. */
             updateTimeAvgStats();
@@ -112,86 +196,179 @@ public class TimeSharedComputer {
                 continue;
             }
 
+            if (tag == EventTag.END_OF_SERVICE) {
+                endOfService(nextEvent);
+                continue;
+            }
+
             /* stop the simulation in case of END_OF_SIMULATION or the event list is empty*/
             if (tag == EventTag.END_OF_SIMULATION ||
                     tag == EventTag.NONE) {
-                report();
                 break;
             }
 
             System.err.println("Never reached!");
         }
+    }
 
-        System.out.println(report());
+    /**
+     * @return true at the end of the run: after the required number of jobs, or in precision mode once
+     * the response time and number in queue estimates are precise enough
+     */
+    boolean isOver() {
+        if (sequentialStop == null) return stats.numCompletedJobs >= params.numJobsRequired();
+        return sequentialStop.checkpoint(eventList)
+                && sequentialStop.shouldStop(stats.responseTimesBatches, stats.jobsInQueueBatches);
+    }
+
+    @Override
+    public void replicate(SimRandomGenerator randGen) {
+        initSimulation(params, randGen);
+        simulate();
+    }
+
+    @Override
+    public String[] measureNames() {
+        return new String[]{"cpu.utilization", "avg.response.time", "avg.number.in.queue"};
+    }
+
+    @Override
+    public double[] measures() {
+        return new double[]{stats.serverUtilization.mean(), stats.responseTimes.mean(), stats.jobsInQueue.mean()};
+    }
+
+    @Override
+    public long numEvents() {
+        return eventList.numEvents();
     }
 
     private void startCpuRun(SimJob job, double time) {
-        if (job.isComplete()) {
-            System.out.println("job = " + job);
-        }
-        assert !job.isComplete();
+        assert !job.isComplete() : job;
         cpuIsIdle = false;
         double timeToRun = Math.min(job.getLeft(), params.quantum());
+        if (tracer != null) tracer.detail(TRACE_CPU_RUN, time, job.index, timeToRun);
         job.decrease(timeToRun);
-        eventList.add(new SimEvent(EventTag.END_CPU_RUN,
+        eventList.schedule(EventTag.END_CPU_RUN,
                 time + timeToRun + params.swap(),
-                job));
+                job.index);
     }
 
-    public SimJob thinkAndThenGenerateJob(double time) {
-        double submitTime = time + randGen.expon(params.meanThinkTime());
+    /**
+     * A terminal has at most one job in the system, its new job replaces the previous one in the
+     * jobs table, so the table holds one job per terminal however long the run.
+     *
+     * @param terminal index of the terminal submitting the job
+     * @param time     time the terminal starts thinking
+     */
+    public SimJob thinkAndThenGenerateJob(int terminal, double time) {
+        double submitTime = time + thinkStream.exponentialSample(params.meanThinkTime());
         double serviceTime = 0;
-        while (serviceTime < 1e-10) {
-            serviceTime = randGen.expon(params.meanServiceTime());
+        /* Redraw a service time that would make the job complete before its first CPU run. */
+        while (serviceTime <= SimJob.EPSILON) {
+            serviceTime = serviceStream.exponentialSample(params.meanServiceTime());
         }
-        assert serviceTime > 0; //TODO delete later
-        return new SimJob(submitTime, serviceTime);
+        SimJob job = new SimJob(submitTime, serviceTime);
+        job.index = terminal;
+        jobs[terminal] = job;
+        return job;
     }
 
-    private void endCpuRun(SimEvent event) {//one cpu tick
-        SimJob runJob = (SimJob) event.data;
-        assert jobQueue.contains(runJob);
+    private void endCpuRun(SimEvent<EventTag> event) {//one cpu tick
+        SimJob runJob = jobs[(int) event.longData];
+        assert jobQueue.next() == runJob;
         if (runJob.isComplete()) {
             jobQueue.remove(runJob, event.time);
+            if (!complete(runJob, event.time)) return;
+        } else {
+            //An incomplete job goes to the end of the round, behind the jobs arrived during its run
+            jobQueue.requeue();
+        }
 
-            //Update Stats
-            stats.numCompletedJobs++;
-            final double responseTime = event.time - runJob.submitTime;
-            stats.totalResponseTime += responseTime;
-
-            cpuIsIdle = jobQueue.isEmpty();
+        //The CPU runs the next job of the round
+        if (jobQueue.isEmpty()) {
+            cpuIsIdle = true;
+        } else {
+            startCpuRun(jobQueue.next(), event.time);
+        }
+    }
 
-            //Check end of simulation
-            if (stats.numCompletedJobs > params.numJobsRequired()) {
-                eventList.add(new SimEvent(EventTag.END_OF_SIMULATION, event.time));
-                return;
-            }
+    /**
+     * Record the response time of a completed job and send it back to its terminal.
+     *
+     * @return false if the job was the last one of the run
+     */
+    private boolean complete(SimJob job, double time) {
+        //Update Stats
+        stats.numCompletedJobs++;
+        final double responseTime = time - job.submitTime;
+        stats.responseTimes.record(responseTime);
+        stats.responseTimesBatches.record(responseTime);
+
+        //Check end of simulation
+        if (sequentialStop == null && stats.numCompletedJobs > params.numJobsRequired()) {
+            eventList.schedule(EventTag.END_OF_SIMULATION, time);
+            return false;
+        }
 
-            //Send it back to terminal, so the terminal will think for a time and then submit a new Job
-            SimJob nextJob = thinkAndThenGenerateJob(event.time);
-            eventList.add(new SimEvent(EventTag.JOB_ARRIVAL, nextJob.submitTime, nextJob));
+        //Send it back to terminal, so the terminal will think for a time and then submit a new Job
+        SimJob nextJob = thinkAndThenGenerateJob(job.index, time);
+        eventList.schedule(EventTag.JOB_ARRIVAL, nextJob.submitTime, nextJob.index);
+        return true;
+    }
 
-        } else if (jobQueue.size() != 0) { //Job is not complete get the next job in the jobqueueu
-            startCpuRun(jobQueue.next(), event.time);
+    /**
+     * Processor sharing: (re)schedule the completion of the resident job that finishes first. The
+     * END_OF_SERVICE event scheduled before, if any, becomes stale.
+     */
+    private void scheduleCompletion() {
+        completionVersion++;
+        cpuIsIdle = psQueue.isEmpty();
+        if (!cpuIsIdle) {
+            eventList.schedule(EventTag.END_OF_SERVICE, psQueue.nextCompletionTime(), completionVersion);
         }
+    }
 
+    private void endOfService(SimEvent<EventTag> event) {
+        if (event.longData != completionVersion) return; // an arrival changed the completion time
+        SimJob job = psQueue.removeCompleted(event.time);
+        if (!complete(job, event.time)) return;
+        scheduleCompletion();
     }
 
-    private void arrive(SimEvent jobEvent) {
-        SimJob job = (SimJob) jobEvent.data;
+    private void arrive(SimEvent<EventTag> jobEvent) {
+        SimJob job = jobs[(int) jobEvent.longData];
         assert job.submitTime - eventList.getTime() < Double.MIN_VALUE;
 
+        if (psQueue != null) {
+            psQueue.add(job, jobEvent.time);
+            scheduleCompletion();
+            return;
+        }
+
         /* Place the arriving job at the end of the TimeSharedComputer queue.
          * Stored for each job record  */
         jobQueue.add(job, jobEvent.time);
 
-        startCpuRun(job, jobEvent.time);
+        /* The job waits for its turn unless the CPU is idle. */
+        if (cpuIsIdle) {
+            startCpuRun(jobQueue.next(), jobEvent.time);
+        }
     }
 
     public static void main(String[] args) throws IOException {
-
+        SimParams params = SimParams.loadFrom("src/input.params.txt");
+        if (ParameterSweep.isDefined(params)) {
+            /* Scenarios of the "sweep." keys, one CSV row of output measures each. */
+            new ParameterSweep<>(params).run(TimeSharedComputer::new);
+            return;
+        }
+        if (params.replications() > 1) {
+            /* Independent replications, report the confidence intervals of the measures. */
+            System.out.println(new ReplicationRunner(params).run(() -> new TimeSharedComputer(params)));
+            return;
+        }
         TimeSharedComputer timeSharedModle = new TimeSharedComputer();
-        timeSharedModle.initSimulation("src/input.params.txt");
+        timeSharedModle.initSimulation(params, params.newRandomGenerator(1));
         timeSharedModle.runSimulation();
         System.out.println("Done Simulation");
     }
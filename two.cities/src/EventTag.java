@@ -0,0 +1,9 @@
+
+/**
+ * @author Suhel Hammoud
+ * Reference: A. M. Law, Simulation Modelling & Analysis 5th edition,
+ * Problem number 1.29, page 83
+ */
+enum EventTag {
+    NONE, CALL_FROM_A, CALL_FROM_B, CALL_RELEASE, END_OF_SIMULATION
+}
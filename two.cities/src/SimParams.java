@@ -1,8 +1,8 @@
-import java.io.FileReader;
+import sim.kernel.SimProperties;
+
 import java.io.IOException;
-import java.util.Properties;
 
-public class SimParams extends Properties {
+public class SimParams extends SimProperties {
 
     double maxSimulationTime;
     int maxAvailableLines;
@@ -13,13 +13,11 @@ public class SimParams extends Properties {
 
     public static SimParams loadFrom(String fileName)
             throws IOException {
-        SimParams result = new SimParams();
-        result.load(new FileReader(fileName));
-        result.init();
-        return result;
+        return loadFrom(fileName, SimParams::new);
     }
 
-    private void init() {
+    @Override
+    protected void init() {
         maxSimulationTime = Double.parseDouble(getProperty("max.simulation.time"));
         maxAvailableLines = Integer.parseInt(getProperty("max.available.lines"));
         meanConnectFromA = Double.parseDouble(getProperty("mean.connect.from.a"));
@@ -1,14 +1,14 @@
+import sim.kernel.TimeStat;
 
 public class SimStats {
 
-    public double areaAvailableLines;
+    public final TimeStat availableLines = new TimeStat();
     public double totalCallAttempts;
 
     public double blockedCalls;
 
     public SimStats() {
         /* Initialize the statistical counters. */
-        this.areaAvailableLines = 0;
         this.totalCallAttempts = 0;
         this.blockedCalls = 0;
     }
@@ -32,7 +32,7 @@ public class SimStats {
                 (double) blockedCalls / totalCallAttempts));
         result.append(String.format(
                 "Average Available Lines = %.4f lines\n",
-                areaAvailableLines / simTime));
+                availableLines.mean()));
         return result.toString();
     }
 }
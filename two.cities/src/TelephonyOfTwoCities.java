@@ -1,3 +1,10 @@
+import sim.kernel.EventList;
+import sim.kernel.ParameterSweep;
+import sim.kernel.ReplicationRunner;
+import sim.kernel.SimEvent;
+import sim.kernel.SimModel;
+import sim.kernel.SimRandomGenerator;
+
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -8,51 +15,77 @@ import java.io.IOException;
  * Reference: A. M. Law, Simulation Modelling & Analysis 5th edition,
  * Problem number 1.29, page 83
  */
-public class TelephonyOfTwoCities {
+public class TelephonyOfTwoCities implements SimModel {
 
-    EventList eventList;
+    EventList<EventTag> eventList;
     SimRandomGenerator randGen;
+    SimRandomGenerator callFromAStream, callFromBStream, callDurationStream; // substreams of randGen
     SimStats stats;
     SimParams params;
 
     int availableLines;
 
+    public TelephonyOfTwoCities() {
+    }
+
+    /**
+     * @param params input parameters, shared by the replications of the model
+     */
+    public TelephonyOfTwoCities(SimParams params) {
+        this.params = params;
+    }
+
     public void initSimulation(String inputParamsFile) throws IOException {
+        /* Read input parameters. */
+        SimParams params = SimParams.loadFrom(inputParamsFile);
+        initSimulation(params, params.newRandomGenerator(1));
+    }
+
+    /**
+     * Initialize the simulation.
+     *
+     * @param params  input parameters
+     * @param randGen random generator of the random variates
+     */
+    public void initSimulation(SimParams params, SimRandomGenerator randGen) {
+        this.params = params;
+
         /* Initialize time and the event list.  Since no order is outstanding */
-        this.eventList = new EventList(0.0);
+        this.eventList = new EventList<>(0.0, EventTag.NONE, params.eventListType());
+
+        this.randGen = randGen;
 
-        this.randGen = new SimRandomGenerator(1);
+        /* One substream per kind of variate, so that configurations run on the same seed draw the
+           same random numbers for the same purpose (common random numbers). */
+        this.callFromAStream = randGen.substream();
+        this.callFromBStream = randGen.substream();
+        this.callDurationStream = randGen.substream();
 
         /* Initialize the statistical counters. */
         this.stats = new SimStats();
 
-        /* Read input parameters. */
-        this.params = SimParams.loadFrom(inputParamsFile);
-
         /* Initialize the state variables. */
         this.availableLines = params.maxAvailableLines;
 
         //schedule the first call event
-        eventList.add(new SimEvent(
+        eventList.schedule(
                 EventTag.CALL_FROM_A,
-                randGen.expon(params.meanConnectFromA)
-        ));
+                callFromAStream.exponentialSample(params.meanConnectFromA)
+        );
 
-        eventList.add(new SimEvent(
+        eventList.schedule(
                 EventTag.CALL_FROM_B,
-                randGen.expon(params.meanConnectFromB)
-        ));
+                callFromBStream.exponentialSample(params.meanConnectFromB)
+        );
 
         //schedule the END_OF_SIMULATION event
-        eventList.add(new SimEvent(EventTag.END_OF_SIMULATION, params.maxSimulationTime));
+        eventList.schedule(EventTag.END_OF_SIMULATION, params.maxSimulationTime);
     }
 
 
-    public SimEvent timing() {
-        /* Check to see whether the event list is empty. */
-        if (eventList.size() == 0) return SimEvent.NONE;
-        SimEvent nextEvent = eventList.removeHeadEvent();
-        return nextEvent;
+    public SimEvent<EventTag> timing() {
+        /* The event list returns the NONE event if it is empty. */
+        return eventList.removeHeadEvent();
     }
 
 
@@ -61,7 +94,7 @@ public class TelephonyOfTwoCities {
      */
     void updateTimeAvgStats() {
         double timeSinceLastEvent = (eventList.timeSinceLastEvent());
-        stats.areaAvailableLines += availableLines * timeSinceLastEvent;
+        stats.availableLines.accumulate(availableLines, timeSinceLastEvent);
     }
 
     /**
@@ -88,25 +121,25 @@ public class TelephonyOfTwoCities {
         outfile.close();
     }
 
-    void connect(SimEvent event) {
+    void connect(SimEvent<EventTag> event) {
         if (event.tag == EventTag.CALL_FROM_A) {
-            eventList.add(new SimEvent(
+            eventList.schedule(
                     EventTag.CALL_FROM_A,
-                    eventList.getTime() + randGen.expon(params.meanConnectFromA)
-            ));
+                    eventList.getTime() + callFromAStream.exponentialSample(params.meanConnectFromA)
+            );
         } else {
-            eventList.add(new SimEvent(
+            eventList.schedule(
                     EventTag.CALL_FROM_B,
-                    eventList.getTime() + randGen.expon(params.meanConnectFromB)
-            ));
+                    eventList.getTime() + callFromBStream.exponentialSample(params.meanConnectFromB)
+            );
         }
         stats.totalCallAttempts++;
         if (availableLines > 0) {
             availableLines--;
-            eventList.add(new SimEvent(
+            eventList.schedule(
                     EventTag.CALL_RELEASE,
-                    eventList.getTime() + randGen.expon(params.meanCallDuration)
-            ));
+                    eventList.getTime() + callDurationStream.exponentialSample(params.meanCallDuration)
+            );
         } else {
             stats.blockedCalls++;
         }
@@ -117,14 +150,22 @@ public class TelephonyOfTwoCities {
     }
 
     public void runSimulation() throws IOException {
+        simulate();
 
+        /* Invoke the report generator and end the simulation. */
+        report();
+    }
 
+    /**
+     * Run the simulation until its end.
+     */
+    void simulate() {
          /* Run the simulation until it terminates after an END_OF_SIMULATION event
             occurs. */
         while (true) {
 
             /* Determine the next event. */
-            final SimEvent nextEvent = timing();
+            final SimEvent<EventTag> nextEvent = timing();
 
             /* Update time-average statistical accumulators. */
             updateTimeAvgStats();
@@ -148,13 +189,43 @@ public class TelephonyOfTwoCities {
                 break;
             }
         }
-        report();
     }
 
-    public static void main(String[] args) throws IOException {
+    @Override
+    public void replicate(SimRandomGenerator randGen) {
+        initSimulation(params, randGen);
+        simulate();
+    }
+
+    @Override
+    public String[] measureNames() {
+        return new String[]{"blocked.calls.ratio", "avg.available.lines"};
+    }
+
+    @Override
+    public double[] measures() {
+        return new double[]{stats.blockedCalls / stats.totalCallAttempts, stats.availableLines.mean()};
+    }
+
+    @Override
+    public long numEvents() {
+        return eventList.numEvents();
+    }
 
+    public static void main(String[] args) throws IOException {
+        SimParams params = SimParams.loadFrom("src/input.params.txt");
+        if (ParameterSweep.isDefined(params)) {
+            /* Scenarios of the "sweep." keys, one CSV row of output measures each. */
+            new ParameterSweep<>(params).run(TelephonyOfTwoCities::new);
+            return;
+        }
+        if (params.replications() > 1) {
+            /* Independent replications, report the confidence intervals of the measures. */
+            System.out.println(new ReplicationRunner(params).run(() -> new TelephonyOfTwoCities(params)));
+            return;
+        }
         TelephonyOfTwoCities inv = new TelephonyOfTwoCities();
-        inv.initSimulation("src/input.params.txt");
+        inv.initSimulation(params, params.newRandomGenerator(1));
         inv.runSimulation();
         System.out.println("Done Simulation");
     }
@@ -0,0 +1,3 @@
+enum EventTag {
+    NONE, ARRIVAL_A, DEPARTURE_A, DEPARTURE_B
+}
@@ -1,8 +1,8 @@
-import java.io.FileReader;
+import sim.kernel.SimProperties;
+
 import java.io.IOException;
-import java.util.Properties;
 
-public class SimParams extends Properties {
+public class SimParams extends SimProperties {
     private double meanInterArrivalTime;
     private double meanServiceTimeA;
     private double meanServiceTimeB;
@@ -15,17 +15,15 @@ public class SimParams extends Properties {
 
     public static SimParams loadFrom(String fileName)
             throws IOException {
-        SimParams result = new SimParams();
-        result.load(new FileReader(fileName));
-        result.init();
-        return result;
+        return loadFrom(fileName, SimParams::new);
     }
 
     public int getCustomersToEndSimulation() {
         return customersToEndSimulation;
     }
 
-    private void init() {
+    @Override
+    protected void init() {
         meanInterArrivalTime = Double.parseDouble(getProperty("mean.arrival.time"));
         meanServiceTimeA = Double.parseDouble(getProperty("mean.service.time.A"));
         meanServiceTimeB = Double.parseDouble(getProperty("mean.service.time.B"));
@@ -1,62 +1,35 @@
+import sim.kernel.SampleStat;
+import sim.kernel.TimeStat;
+
 public class SimStats {
 
     //Server A
-    public double areaNumInQA;
-    public double areaServerStatusA;
+    public final TimeStat numInQA = new TimeStat();
+    public final TimeStat serverStatusA = new TimeStat();
 
     //Server B
-    public double areaNumInQB;
-    public double areaServerStatusB;
+    public final TimeStat numInQB = new TimeStat();
+    public final TimeStat serverStatusB = new TimeStat();
 
     //Customer Type One
     public int numOfBalks;
-    public double totalTimeOne;
-    private int maxQueueA;
+    public final SampleStat timeInSystemOne = new SampleStat();
     public int numServedCustomersOne;
 
     //Customer Type Two
-    public double totalTimeTwo;
-    private int maxQueueB;
+    public final SampleStat timeInSystemTwo = new SampleStat();
     public int numServedCustomersTwo;
 
-    public int getMaxQueueA() {
-        return maxQueueA;
-    }
-
-    public int getMaxQueueB() {
-        return maxQueueB;
-    }
-
-    public void setQueueALength(int length) {
-        maxQueueA = Integer.max(maxQueueA, length);
-    }
-
-    public void setQueueBLength(int length) {
-        maxQueueB = Integer.max(maxQueueB, length);
-    }
-
     public int numServedCustomers() {
         return numServedCustomersOne + numServedCustomersTwo;
     }
 
     public SimStats() {
-        //server A
-        areaNumInQA = 0;
-        areaServerStatusA = 0;
-
-        //server B
-        areaNumInQB = 0;
-        areaServerStatusB = 0;
-
         //Customer type one
-        totalTimeOne = 0;
-        maxQueueA = 0;
         numServedCustomersOne = 0;
         numOfBalks = 0;
 
         //Customer type two
-        totalTimeTwo = 0;
-        maxQueueB = 0;
         numServedCustomersTwo = 0;
     }
 }
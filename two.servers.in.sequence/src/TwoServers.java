@@ -1,3 +1,10 @@
+import sim.kernel.EventList;
+import sim.kernel.ParameterSweep;
+import sim.kernel.ReplicationRunner;
+import sim.kernel.SimEvent;
+import sim.kernel.SimModel;
+import sim.kernel.SimRandomGenerator;
+
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -8,10 +15,14 @@ import java.util.List;
  * @author Suhel Hammoud
  * Reference: A. M. Law, Simulation Modeling & Analysis 3rd edition, Problem 2.27, page 191
  */
-public class TwoServers {
+public class TwoServers implements SimModel {
 
     enum ServerStatus {IDLE, BUSY}
 
+    /* customer types, carried in SimEvent.longData */
+    static final long TYPE_ONE = 1;
+    static final long TYPE_TWO = 2;
+
     /**
      * Status Variables
      */
@@ -21,11 +32,22 @@ public class TwoServers {
     List<Customer> queueA;
     List<Customer> queueB;
 
-    EventList eventList;
+    EventList<EventTag> eventList;
     SimRandomGenerator randGen;
+    SimRandomGenerator arrivalStream, typeStream, balkingStream, serviceStreamA, serviceStreamB; // substreams of randGen
     SimStats stats;
     SimParams params;
 
+    public TwoServers() {
+    }
+
+    /**
+     * @param params input parameters, shared by the replications of the model
+     */
+    public TwoServers(SimParams params) {
+        this.params = params;
+    }
+
     /**
      * Initialize the simulation.
      *
@@ -34,7 +56,18 @@ public class TwoServers {
      */
     public void initSimulation(String inputParamsFile) throws IOException {
         /* Read input parameters. */
-        this.params = SimParams.loadFrom(inputParamsFile);
+        SimParams params = SimParams.loadFrom(inputParamsFile);
+        initSimulation(params, params.newRandomGenerator(0L));
+    }
+
+    /**
+     * Initialize the simulation.
+     *
+     * @param params  input parameters
+     * @param randGen random generator of the random variates
+     */
+    public void initSimulation(SimParams params, SimRandomGenerator randGen) {
+        this.params = params;
 
         /* Initialize the  state variables. */
         serverAStatus = ServerStatus.IDLE;
@@ -44,21 +77,40 @@ public class TwoServers {
         queueB = new LinkedList<>();
 
         /* Initialize the simulation clock and event list. */
-        eventList = new EventList(0.0);
+        eventList = new EventList<>(0.0, EventTag.NONE, params.eventListType());
+
+        this.randGen = randGen;
 
-        randGen = new SimRandomGenerator(0L);
+        /* One substream per kind of variate, so that configurations run on the same seed draw the
+           same random numbers for the same purpose (common random numbers). */
+        this.arrivalStream = randGen.substream();
+        this.typeStream = randGen.substream();
+        this.balkingStream = randGen.substream();
+        this.serviceStreamA = randGen.substream();
+        this.serviceStreamB = randGen.substream();
 
         /* Initialize the statistical variables. */
         stats = new SimStats();
 
-        //Schedule First Arrival, put customer instance in data field
-        Customer c = new Customer(randGen.isCustomerTypeOne(),
-                randGen.exponentialSample(params.getMeanInterArrivalTime()));
-        SimEvent firstArrival = new SimEvent(
-                EventTag.ARRIVAL_A,
-                c.firstArrival,
-                c);
-        eventList.add(firstArrival);
+        //Schedule First Arrival, the customer travels in the payload slots of the event
+        boolean isTypeOne = isCustomerTypeOne();
+        double firstArrival = arrivalStream.exponentialSample(params.getMeanInterArrivalTime());
+        scheduleCustomer(EventTag.ARRIVAL_A, firstArrival, isTypeOne, firstArrival);
+    }
+
+    /**
+     * Schedule an event of a customer: its type in longData and its arrival time in doubleData.
+     */
+    private void scheduleCustomer(EventTag tag, double time, boolean isTypeOne, double firstArrival) {
+        eventList.schedule(tag, time, isTypeOne ? TYPE_ONE : TYPE_TWO, firstArrival);
+    }
+
+    private void scheduleCustomer(EventTag tag, double time, Customer c) {
+        scheduleCustomer(tag, time, c.isTypeOne, c.firstArrival);
+    }
+
+    private static boolean isTypeOne(SimEvent<EventTag> ev) {
+        return ev.longData == TYPE_ONE;
     }
 
     /**
@@ -66,46 +118,54 @@ public class TwoServers {
      *
      * @return
      */
-    public SimEvent timing() {
-        /* Check to see whether the event list is empty. */
-        if (eventList.size() == 0) return SimEvent.NONE;
-        SimEvent nextEvent = eventList.removeHeadEvent();
-        return nextEvent;
+    public SimEvent<EventTag> timing() {
+        /* The event list returns the NONE event if it is empty. */
+        return eventList.removeHeadEvent();
+    }
+
+    /**
+     * An arriving customer is classified as type 1 with probability 0.6
+     */
+    private boolean isCustomerTypeOne() {
+        return typeStream.nextDouble() < 0.6;
     }
 
-    private void arriveA(SimEvent ev) {
+    /**
+     * A customer finding queueLength others in queueA joins with probability 1/(queueLength + 1)
+     */
+    private boolean willBalkAtQueue(int queueLength) {
+        double probability = 1.0 / (1.0 + queueLength);
+        return balkingStream.nextDouble() > probability;
+    }
+
+    private void arriveA(SimEvent<EventTag> ev) {
         /* Schedule next arrival. */
-        Customer nextCustomer = new Customer(randGen.isCustomerTypeOne(),
-                ev.time + randGen.exponentialSample(params.getMeanInterArrivalTime()));
-        SimEvent nextArrivalEvent = new SimEvent(
-                EventTag.ARRIVAL_A,
-                nextCustomer.firstArrival,
-                nextCustomer);
-        eventList.add(nextArrivalEvent);
-
-        Customer c = (Customer) ev.data;
+        boolean nextIsTypeOne = isCustomerTypeOne();
+        double nextArrival = ev.time + arrivalStream.exponentialSample(params.getMeanInterArrivalTime());
+        scheduleCustomer(EventTag.ARRIVAL_A, nextArrival, nextIsTypeOne, nextArrival);
+
         /* Check balk condition if customer is of type 1*/
-        if (c.isTypeOne && randGen.willBalkAtQueue(queueA.size())) {
+        if (isTypeOne(ev) && willBalkAtQueue(queueA.size())) {
             //Customer of type one is balking at queueA
             stats.numOfBalks++;
             stats.numServedCustomersOne++;
+            stats.timeInSystemOne.record(0.0);
             return;
         }
 
         /* Check to see whether server is busy. */
         if (serverAStatus == ServerStatus.BUSY) {
             /* Server is busy, so increment number of customers in queueA. */
-            queueA.add(c);
+            queueA.add(new Customer(isTypeOne(ev), ev.doubleData));
         } else {
             serverAStatus = ServerStatus.BUSY;
             /* Schedule a departure (service completion). */
             double nextDepartureTime = ev.time +
-                    randGen.exponentialSample(params.getMeanServiceTimeA());
-            SimEvent nextDepartureAEvent = new SimEvent(
+                    serviceStreamA.exponentialSample(params.getMeanServiceTimeA());
+            eventList.schedule(
                     EventTag.DEPARTURE_A,
                     nextDepartureTime,
-                    ev.data); //keep customer in data field
-            eventList.add(nextDepartureAEvent);
+                    ev.longData, ev.doubleData); //keep customer in payload slots
         }
     }
 
@@ -114,7 +174,7 @@ public class TwoServers {
      *
      * @param ev
      */
-    private void departA(SimEvent ev) {
+    private void departA(SimEvent<EventTag> ev) {
 
         /* Check to see whether the queueA is empty. */
         if (queueA.size() == 0) {
@@ -125,43 +185,39 @@ public class TwoServers {
                 queueA. */
             serverAStatus = ServerStatus.BUSY;
             //Serve head customer and schedule its next Departure A
-            double nextDepartureTime = ev.time + randGen.exponentialSample(params.getMeanServiceTimeA());
-            SimEvent nextDepartureEvent = new SimEvent(EventTag.DEPARTURE_A,
+            double nextDepartureTime = ev.time + serviceStreamA.exponentialSample(params.getMeanServiceTimeA());
+            scheduleCustomer(EventTag.DEPARTURE_A,
                     nextDepartureTime,
                     queueA.remove(0));
-            eventList.add(nextDepartureEvent);
         }
 
-        Customer c = (Customer) ev.data;
         /* Customers type 1 leaves the system here */
-        if (c.isTypeOne) {
+        if (isTypeOne(ev)) {
             //leave the system now
             stats.numServedCustomersOne++;
-            stats.totalTimeOne += ev.time - c.firstArrival;
+            stats.timeInSystemOne.record(ev.time - ev.doubleData);
         } else {
             arriveB(ev);
         }
 
     }
 
-    private void arriveB(SimEvent ev) {
+    private void arriveB(SimEvent<EventTag> ev) {
         //Only customers of type 2 will have this method called
-        Customer c = (Customer) ev.data;
         /* Check to see whether server is busy. */
         if (serverBStatus == ServerStatus.BUSY) {
             /* Server is busy, so increment number of customers in queueA. */
-            queueB.add(c);
+            queueB.add(new Customer(false, ev.doubleData));
         } else {
             /* Server is idle, so arriving customer has a delay of zero. make the server busy*/
             serverBStatus = ServerStatus.BUSY;
             /* Schedule a departure (service completion). */
             double nextDepartureTime = ev.time +
-                    randGen.exponentialSample(params.getMeanServiceTimeA());
-            SimEvent nextDepartureEvent = new SimEvent(
+                    serviceStreamB.exponentialSample(params.getMeanServiceTimeA());
+            eventList.schedule(
                     EventTag.DEPARTURE_B,
                     nextDepartureTime,
-                    c);
-            eventList.add(nextDepartureEvent);
+                    ev.longData, ev.doubleData);
         }
 
     }
@@ -171,12 +227,10 @@ public class TwoServers {
      *
      * @param ev
      */
-    private void departB(SimEvent ev) {
+    private void departB(SimEvent<EventTag> ev) {
         /* update total number of customers passed the system */
-        Customer c = (Customer) ev.data;
-
         stats.numServedCustomersTwo++;
-        stats.totalTimeTwo += ev.time - c.firstArrival;
+        stats.timeInSystemTwo.record(ev.time - ev.doubleData);
 
         /* Check to see whether the queueA is empty. */
         if (queueB.size() == 0) {
@@ -188,11 +242,10 @@ public class TwoServers {
 
             /* schedule departure event for new customer customer*/
             double nextDepartureTime = ev.time +
-                    randGen.exponentialSample(params.getMeanServiceTimeA());
-            SimEvent nextDepartureEvent = new SimEvent(EventTag.DEPARTURE_B,
+                    serviceStreamB.exponentialSample(params.getMeanServiceTimeA());
+            scheduleCustomer(EventTag.DEPARTURE_B,
                     nextDepartureTime,
                     queueB.remove(0));
-            eventList.add(nextDepartureEvent);
         }
     }
 
@@ -204,21 +257,17 @@ public class TwoServers {
         /* Compute time since last event, and update last-event-time marker. */
         double timeSinceLastEvent = (eventList.timeSinceLastEvent());
 
-        /* Update queue length*/
-        stats.setQueueALength(queueA.size());
-        stats.setQueueBLength(queueB.size());
-
         /* Update area under number-in-queueA function. */
-        stats.areaServerStatusA += serverAStatus == ServerStatus.BUSY ? timeSinceLastEvent : 0;
+        stats.serverStatusA.accumulate(serverAStatus == ServerStatus.BUSY ? 1 : 0, timeSinceLastEvent);
 
-        /* Update area under server-busy indicator function. */
-        stats.areaNumInQA += (queueA.size() * timeSinceLastEvent);
+        /* Update area under server-busy indicator function, also keeps the max queue length. */
+        stats.numInQA.accumulate(queueA.size(), timeSinceLastEvent);
 
         /* Update area under number-in-queueB function. */
-        stats.areaServerStatusB += serverBStatus == ServerStatus.BUSY ? timeSinceLastEvent : 0;
+        stats.serverStatusB.accumulate(serverBStatus == ServerStatus.BUSY ? 1 : 0, timeSinceLastEvent);
 
-        /* Update area under server-busy indicator function. */
-        stats.areaNumInQB += (queueB.size() * timeSinceLastEvent);
+        /* Update area under server-busy indicator function, also keeps the max queue length. */
+        stats.numInQB.accumulate(queueB.size(), timeSinceLastEvent);
     }
 
     /**
@@ -245,7 +294,7 @@ public class TwoServers {
         outfile.write(String.format("\n\nNumber of Customers of type one = %d customers",
                 stats.numServedCustomersOne));
         outfile.write(String.format("\n\nAverage time spent for customers of type one = %4.3f minutes/customer",
-                stats.totalTimeOne / stats.numServedCustomersOne));
+                stats.timeInSystemOne.mean()));
         outfile.write(String.format("\n\nNumber of balks for customers of type 1 = %d customers",
                 stats.numOfBalks));
         outfile.write("\n===================================================================");
@@ -257,7 +306,7 @@ public class TwoServers {
                 stats.numServedCustomersTwo));
 
         outfile.write(String.format("\n\nAverage time spent for customers of type two = %4.3f minutes/customer",
-                stats.totalTimeTwo / stats.numServedCustomersTwo));
+                stats.timeInSystemTwo.mean()));
         outfile.write("\n===================================================================");
 
         /* Calc stats for server A*/
@@ -265,11 +314,11 @@ public class TwoServers {
         outfile.write(String.format("\n\nNumber of served customers in Server A = %d",
                 stats.numServedCustomers() - stats.numServedCustomersTwo - stats.numOfBalks));
         outfile.write(String.format("\n\nAverage number in queueA = %4.3f",
-                stats.areaNumInQA / endSimulationTime));
+                stats.numInQA.mean()));
         outfile.write(String.format("\n\nMax number in queueA = %d",
-                stats.getMaxQueueA()));
+                (int) stats.numInQA.max()));
         outfile.write(String.format("\n\nServer A utilization = %4.3f",
-                stats.areaServerStatusA / endSimulationTime));
+                stats.serverStatusA.mean()));
         outfile.write("\n===================================================================");
 
         /* Calc stats for server B*/
@@ -277,18 +326,27 @@ public class TwoServers {
         outfile.write(String.format("\n\nNumber of served customers in Server B = %d",
                 stats.numServedCustomersTwo));
         outfile.write(String.format("\n\nAverage number in queueB = %4.3f",
-                stats.areaNumInQB / endSimulationTime));
+                stats.numInQB.mean()));
         outfile.write(String.format("\n\nServer B utilization = %4.3f",
-                stats.areaServerStatusB / endSimulationTime));
+                stats.serverStatusB.mean()));
         outfile.write(String.format("\n\nMax number in queueB = %d",
-                stats.getMaxQueueB()));
+                (int) stats.numInQB.max()));
         outfile.write("\n===================================================================");
 
         outfile.close();
     }
 
     public void runSimulation() throws IOException {
+        simulate();
+
+        /* Invoke the report generator and end the simulation. */
+        report();
+    }
 
+    /**
+     * Run the simulation until its end.
+     */
+    void simulate() {
         final int customersToEndSimulation = params.getCustomersToEndSimulation();
 
         while (stats.numServedCustomers() < customersToEndSimulation) {
@@ -296,8 +354,8 @@ public class TwoServers {
             /* Update time-average statistical accumulators. */
             updateTimeAvgStats();
 
-            /*  final SimEvent nextEvent = eventList.removeHeadEvent(); */
-            final SimEvent ev = timing();
+            /*  final SimEvent<EventTag> nextEvent = eventList.removeHeadEvent(); */
+            final SimEvent<EventTag> ev = timing();
 
             /* Invoke the appropriate event */
             EventTag tag = ev.tag;
@@ -316,15 +374,45 @@ public class TwoServers {
                 continue;
             }
         }
+    }
 
-        /* Invoke the report generator and end the simulation. */
-        report();
+    @Override
+    public void replicate(SimRandomGenerator randGen) {
+        initSimulation(params, randGen);
+        simulate();
+    }
+
+    @Override
+    public String[] measureNames() {
+        return new String[]{"avg.time.in.system.one", "avg.time.in.system.two", "number.of.balks",
+                "avg.number.in.queueA", "serverA.utilization", "avg.number.in.queueB", "serverB.utilization"};
+    }
 
+    @Override
+    public double[] measures() {
+        return new double[]{stats.timeInSystemOne.mean(), stats.timeInSystemTwo.mean(), stats.numOfBalks,
+                stats.numInQA.mean(), stats.serverStatusA.mean(), stats.numInQB.mean(), stats.serverStatusB.mean()};
+    }
+
+    @Override
+    public long numEvents() {
+        return eventList.numEvents();
     }
 
     public static void main(String[] args) throws IOException {
+        SimParams params = SimParams.loadFrom("src/input.params.txt");
+        if (ParameterSweep.isDefined(params)) {
+            /* Scenarios of the "sweep." keys, one CSV row of output measures each. */
+            new ParameterSweep<>(params).run(TwoServers::new);
+            return;
+        }
+        if (params.replications() > 1) {
+            /* Independent replications, report the confidence intervals of the measures. */
+            System.out.println(new ReplicationRunner(params).run(() -> new TwoServers(params)));
+            return;
+        }
         TwoServers twoServers = new TwoServers();
-        twoServers.initSimulation("src/input.params.txt");
+        twoServers.initSimulation(params, params.newRandomGenerator(0L));
         twoServers.runSimulation();
     }
 }